@@ -0,0 +1,28 @@
+package com.consultation.benchmarks;
+
+import jakarta.enterprise.event.Event;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Event CDI sans observateur, pour utiliser les services hors conteneur.
+ */
+final class EvenementsIgnores {
+
+    private EvenementsIgnores() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> Event<T> creer() {
+        return (Event<T>) Proxy.newProxyInstance(Event.class.getClassLoader(), new Class<?>[] { Event.class },
+                (proxy, methode, args) -> switch (methode.getName()) {
+                    case "fire" -> null;
+                    case "fireAsync" -> CompletableFuture.completedFuture(args[0]);
+                    case "select" -> proxy;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "EvenementsIgnores";
+                    default -> throw new UnsupportedOperationException(methode.getName());
+                });
+    }
+}
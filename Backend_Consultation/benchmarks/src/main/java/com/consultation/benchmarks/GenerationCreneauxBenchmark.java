@@ -0,0 +1,69 @@
+package com.consultation.benchmarks;
+
+import com.consultation.models.Crenaux;
+import com.consultation.models.Medecin;
+import com.consultation.services.CrenauxService;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Boucle de découpage des créneaux de CrenauxService.genererCreneaux (sans
+ * l'insertion en base).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GenerationCreneauxBenchmark {
+
+    /**
+     * Nombre de jours générés.
+     */
+    @Param({ "7", "31", "365" })
+    public int jours;
+
+    /**
+     * Durée d'une séance en minutes.
+     */
+    @Param({ "15", "30" })
+    public int dureeSeance;
+
+    private Medecin medecin;
+    private LocalDate dateDebut;
+    private LocalDate dateFin;
+
+    @Setup
+    public void preparer() {
+        medecin = new Medecin();
+        medecin.setId(1L);
+        dateDebut = LocalDate.of(2030, 1, 7);
+        dateFin = dateDebut.plusDays(jours - 1L);
+    }
+
+    @Benchmark
+    public List<Crenaux> sansPause() {
+        return CrenauxService.construireCandidats(medecin, dateDebut, dateFin,
+                LocalTime.of(8, 0), LocalTime.of(18, 0), dureeSeance, null, null);
+    }
+
+    @Benchmark
+    public List<Crenaux> avecPause() {
+        return CrenauxService.construireCandidats(medecin, dateDebut, dateFin,
+                LocalTime.of(8, 0), LocalTime.of(18, 0), dureeSeance, LocalTime.of(12, 0), LocalTime.of(13, 0));
+    }
+}
@@ -0,0 +1,57 @@
+package com.consultation.benchmarks;
+
+import com.consultation.security.JWTUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Vérification d'un token telle que faite par JWTAuthFilter : parsing et
+ * vérification HMAC complets, puis passage par le cache des tokens vérifiés.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class JwtBenchmark {
+
+    private JWTUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void preparer() {
+        jwtUtil = new JWTUtil();
+        token = Jwts.builder()
+                .setSubject("medecin@example.com")
+                .claim("role", "MEDECIN")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 24 * 3600 * 1000L))
+                .signWith(JWTUtil.SIGNING_KEY)
+                .compact();
+    }
+
+    @Benchmark
+    public Claims parsingComplet() {
+        return jwtUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public JWTUtil.JetonVerifie verificationEnCache() {
+        return jwtUtil.verifier(token);
+    }
+}
@@ -0,0 +1,34 @@
+package com.consultation.benchmarks;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Point d'entrée de benchmarks.jar : accepte les options JMH habituelles
+ * (filtre, -t, -f, -wi, -i...) et écrit toujours les résultats en JSON dans
+ * target/jmh-resultats-<date>.json, pour comparer deux exécutions.
+ */
+public final class Lanceur {
+
+    private Lanceur() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions ligneDeCommande = new CommandLineOptions(args);
+        String fichier = "target/jmh-resultats-"
+                + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json";
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(ligneDeCommande);
+        if (!ligneDeCommande.getResult().hasValue()) {
+            new java.io.File("target").mkdirs();
+            builder.result(fichier).resultFormat(ResultFormatType.JSON);
+        }
+        Options options = builder.build();
+        new Runner(options).run();
+    }
+}
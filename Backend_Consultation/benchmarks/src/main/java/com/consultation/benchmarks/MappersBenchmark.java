@@ -0,0 +1,103 @@
+package com.consultation.benchmarks;
+
+import com.consultation.dto.MedecinDto;
+import com.consultation.mapper.CustomObjectMapper;
+import com.consultation.mapper.RendezVousMapper;
+import com.consultation.models.Crenaux;
+import com.consultation.models.Medecin;
+import com.consultation.models.Patient;
+import com.consultation.models.RendezVous;
+import com.consultation.models.Role;
+import com.consultation.models.Service;
+import com.consultation.models.StatutCrenau;
+import com.consultation.models.StatutRDV;
+import com.consultation.models.Utilisateur;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sérialisation JSON des réponses : corps de création d'un rendez-vous
+ * (RendezVousMapper) et liste des médecins en DTO, avec le même ObjectMapper
+ * que l'application.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappersBenchmark {
+
+    private ObjectMapper mapper;
+    private ObjectWriter writerMedecins;
+    private RendezVous rendezVous;
+    private List<MedecinDto> medecins;
+
+    @Setup
+    public void preparer() {
+        mapper = CustomObjectMapper.create();
+        writerMedecins = mapper.writerFor(mapper.getTypeFactory().constructCollectionType(List.class, MedecinDto.class));
+
+        Service service = new Service();
+        service.setId(1L);
+        service.setNom("Cardiologie");
+
+        Medecin medecin = new Medecin();
+        medecin.setId(2L);
+        medecin.setService(service);
+
+        Utilisateur utilisateurPatient = new Utilisateur();
+        utilisateurPatient.setId(3L);
+        Patient patient = new Patient();
+        patient.setId(3L);
+        patient.setUtilisateur(utilisateurPatient);
+
+        Crenaux creneau = new Crenaux();
+        creneau.setId(10L);
+        creneau.setMedecin(medecin);
+        creneau.setDateDay(LocalDate.of(2030, 3, 4));
+        creneau.setHeureDebut(LocalTime.of(9, 30));
+        creneau.setHeureFin(LocalTime.of(10, 0));
+        creneau.setStatut(StatutCrenau.RESERVE);
+
+        rendezVous = new RendezVous();
+        rendezVous.setId(100L);
+        rendezVous.setCreneau(creneau);
+        rendezVous.setPatient(patient);
+        rendezVous.setMotif("Contrôle annuel");
+        rendezVous.setStatutRdv(StatutRDV.CONFIRME);
+
+        medecins = new ArrayList<>();
+        for (long i = 1; i <= 50; i++) {
+            medecins.add(new MedecinDto(i, "Nom" + i, "Prenom" + i, "medecin" + i + "@example.com",
+                    "06000000" + (i % 100), Role.MEDECIN.name(), true, "Cardiologie", 30,
+                    "1 rue de la Santé", 1L));
+        }
+    }
+
+    @Benchmark
+    public String reponseCreation() throws JsonProcessingException {
+        return mapper.writeValueAsString(RendezVousMapper.reponseCreation(rendezVous));
+    }
+
+    @Benchmark
+    public byte[] listeMedecins() throws JsonProcessingException {
+        return writerMedecins.writeValueAsBytes(medecins);
+    }
+}
@@ -0,0 +1,264 @@
+package com.consultation.benchmarks;
+
+import com.consultation.models.Medecin;
+import com.consultation.models.Patient;
+import com.consultation.models.RendezVous;
+import com.consultation.models.Role;
+import com.consultation.models.Service;
+import com.consultation.models.Utilisateur;
+import com.consultation.services.RendezVousService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.Persistence;
+import jakarta.persistence.PersistenceException;
+import java.lang.reflect.Field;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hibernate.Session;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Réservation concurrente de créneaux avec RendezVousService.prendreRendezVous,
+ * en mode pessimiste et optimiste (propriété consultation.reservation.mode,
+ * lue au chargement du service, d'où un fork par mode).
+ *
+ * Tous les threads visent le même créneau « courant » jusqu'à ce qu'il soit
+ * pris, puis passent au suivant : c'est la situation d'un créneau très demandé,
+ * où les deux stratégies diffèrent. La base est H2 en mémoire en mode MySQL ;
+ * les chiffres servent à comparer les stratégies entre elles, pas à prédire la
+ * latence sur MySQL.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+public class ReservationBenchmark {
+
+    /**
+     * Nombre de créneaux créés : assez pour ne jamais les épuiser pendant une
+     * itération.
+     */
+    private static final int NOMBRE_CRENEAUX = 100_000;
+
+    private static final int NOMBRE_PATIENTS = 64;
+
+    /**
+     * Base partagée : schéma, médecin, patients et créneaux.
+     */
+    @State(Scope.Benchmark)
+    public static class Base {
+        EntityManagerFactory emf;
+        long[] creneaux;
+        long[] patients;
+        final AtomicInteger courant = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void creer() {
+            emf = Persistence.createEntityManagerFactory("benchmarkPU");
+            EntityManager em = emf.createEntityManager();
+            try {
+                em.getTransaction().begin();
+                Service service = new Service();
+                service.setNom("Médecine générale");
+                em.persist(service);
+
+                Medecin medecin = new Medecin();
+                medecin.setUtilisateur(utilisateur("medecin@example.com", Role.MEDECIN));
+                medecin.setSpecialite("Généraliste");
+                medecin.setDureeSeance(15);
+                medecin.setService(service);
+                em.persist(medecin.getUtilisateur());
+                em.persist(medecin);
+
+                patients = new long[NOMBRE_PATIENTS];
+                for (int i = 0; i < NOMBRE_PATIENTS; i++) {
+                    Patient patient = new Patient();
+                    patient.setUtilisateur(utilisateur("patient" + i + "@example.com", Role.PATIENT));
+                    em.persist(patient.getUtilisateur());
+                    em.persist(patient);
+                    em.flush();
+                    patients[i] = patient.getId();
+                }
+                em.flush();
+
+                Long medecinId = medecin.getId();
+                em.unwrap(Session.class).doWork(connexion -> {
+                    try (PreparedStatement insert = connexion.prepareStatement(
+                            "INSERT INTO crenaux (id_medecin, date_day, heure_debut, heure_fin, statut) "
+                                    + "VALUES (?, ?, ?, ?, 'LIBRE')")) {
+                        LocalDate jour = LocalDate.of(2030, 1, 1);
+                        LocalTime heure = LocalTime.of(8, 0);
+                        for (int i = 0; i < NOMBRE_CRENEAUX; i++) {
+                            insert.setLong(1, medecinId);
+                            insert.setDate(2, Date.valueOf(jour));
+                            insert.setTime(3, Time.valueOf(heure));
+                            insert.setTime(4, Time.valueOf(heure.plusMinutes(15)));
+                            insert.addBatch();
+                            heure = heure.plusMinutes(15);
+                            if (heure.equals(LocalTime.of(18, 0))) {
+                                heure = LocalTime.of(8, 0);
+                                jour = jour.plusDays(1);
+                            }
+                            if (i % 1000 == 999) {
+                                insert.executeBatch();
+                            }
+                        }
+                        insert.executeBatch();
+                    }
+                    try (Statement select = connexion.createStatement();
+                            ResultSet ids = select.executeQuery("SELECT id FROM crenaux ORDER BY id")) {
+                        creneaux = new long[NOMBRE_CRENEAUX];
+                        int i = 0;
+                        while (ids.next()) {
+                            creneaux[i++] = ids.getLong(1);
+                        }
+                    }
+                });
+                em.getTransaction().commit();
+            } finally {
+                em.close();
+            }
+        }
+
+        /**
+         * Chaque itération repart de créneaux tous libres.
+         */
+        @Setup(Level.Iteration)
+        public void reinitialiser() {
+            EntityManager em = emf.createEntityManager();
+            try {
+                em.getTransaction().begin();
+                em.createNativeQuery("DELETE FROM rendez_vous").executeUpdate();
+                em.createNativeQuery("UPDATE crenaux SET statut = 'LIBRE' WHERE statut <> 'LIBRE'").executeUpdate();
+                em.getTransaction().commit();
+            } finally {
+                em.close();
+            }
+            courant.set(0);
+        }
+
+        @TearDown(Level.Trial)
+        public void fermer() {
+            emf.close();
+        }
+
+        /**
+         * Passe au créneau suivant si le créneau vu est toujours le courant.
+         */
+        void suivant(int vu) {
+            courant.compareAndSet(vu, vu + 1);
+        }
+
+        private static Utilisateur utilisateur(String email, Role role) {
+            Utilisateur utilisateur = new Utilisateur();
+            utilisateur.setNom("Nom");
+            utilisateur.setPrenom("Prenom");
+            utilisateur.setEmail(email);
+            utilisateur.setMotDePasse("x");
+            utilisateur.setRole(role);
+            return utilisateur;
+        }
+    }
+
+    /**
+     * Contexte de persistance et service propres à chaque thread, comme une
+     * requête HTTP dans le conteneur.
+     */
+    @State(Scope.Thread)
+    public static class Client {
+        EntityManager em;
+        RendezVousService service;
+
+        @Setup(Level.Trial)
+        public void creer(Base base) throws ReflectiveOperationException {
+            em = base.emf.createEntityManager();
+            service = new RendezVousService();
+            injecter(service, "em", em);
+            injecter(service, "creneauxModifies", EvenementsIgnores.creer());
+            injecter(service, "rendezVousModifie", EvenementsIgnores.creer());
+        }
+
+        @TearDown(Level.Trial)
+        public void fermer() {
+            em.close();
+        }
+
+        private static void injecter(Object cible, String champ, Object valeur) throws ReflectiveOperationException {
+            Field field = cible.getClass().getDeclaredField(champ);
+            field.setAccessible(true);
+            field.set(cible, valeur);
+        }
+    }
+
+    /**
+     * Issue des tentatives, publiée par JMH à côté du débit.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Issues {
+        public long reussies;
+        public long conflits;
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dconsultation.reservation.mode=pessimiste")
+    public RendezVous pessimiste(Base base, Client client, Issues issues) {
+        return reserver(base, client, issues);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dconsultation.reservation.mode=optimiste")
+    public RendezVous optimiste(Base base, Client client, Issues issues) {
+        return reserver(base, client, issues);
+    }
+
+    /**
+     * Une tentative de réservation dans sa propre transaction, comme
+     * l'intercepteur @Transactional le ferait.
+     */
+    private static RendezVous reserver(Base base, Client client, Issues issues) {
+        int indice = base.courant.get();
+        long patientId = base.patients[ThreadLocalRandom.current().nextInt(base.patients.length)];
+        EntityTransaction transaction = client.em.getTransaction();
+        try {
+            transaction.begin();
+            RendezVous rdv = client.service.prendreRendezVous(patientId, base.creneaux[indice], null);
+            transaction.commit();
+            issues.reussies++;
+            base.suivant(indice);
+            return rdv;
+        } catch (IllegalArgumentException | IllegalStateException | PersistenceException e) {
+            issues.conflits++;
+            base.suivant(indice);
+            return null;
+        } finally {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            client.em.clear();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.consultation.cache;
+
+import com.consultation.events.ReferentielModifie;
+import com.consultation.models.Medecin;
+import com.consultation.models.Service;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Pilotage du cache de second niveau Hibernate (régions définies dans
+ * ehcache.xml) : éviction après écriture et statistiques par région.
+ */
+@ApplicationScoped
+public class CacheSecondNiveau {
+
+    /**
+     * Région du cache de requêtes utilisée par MedecinService.countMedecinsByService.
+     */
+    public static final String REGION_COMPTE_MEDECINS = "compteMedecinsParService";
+
+    /**
+     * Région du cache de requêtes utilisée par ServiceService.findAll.
+     */
+    public static final String REGION_CATALOGUE_SERVICES = "catalogueServices";
+
+    private static final String[] REGIONS_ENTITES = { Service.class.getName(), Medecin.class.getName() };
+
+    @PersistenceUnit
+    private EntityManagerFactory emf;
+
+    /**
+     * Évince l'entité modifiée et les comptages par service une fois la
+     * transaction validée.
+     */
+    void surReferentielModifie(@Observes(during = TransactionPhase.AFTER_SUCCESS) ReferentielModifie evenement) {
+        Class<?> type = evenement.famille() == ReferentielModifie.Famille.SERVICE ? Service.class : Medecin.class;
+        emf.getCache().evict(type, evenement.id());
+        org.hibernate.Cache cache = emf.unwrap(SessionFactory.class).getCache();
+        cache.evictQueryRegion(REGION_COMPTE_MEDECINS);
+        if (evenement.famille() == ReferentielModifie.Famille.SERVICE) {
+            cache.evictQueryRegion(REGION_CATALOGUE_SERVICES);
+        }
+    }
+
+    /**
+     * Succès, échecs et taux de succès de chaque région.
+     */
+    public Map<String, Object> statistiques() {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String region : REGIONS_ENTITES) {
+            regions.put(region, decrire(statistics.getDomainDataRegionStatistics(region)));
+        }
+        regions.put(REGION_CATALOGUE_SERVICES,
+                decrire(statistics.getQueryRegionStatistics(REGION_CATALOGUE_SERVICES)));
+        regions.put(REGION_COMPTE_MEDECINS, decrire(statistics.getQueryRegionStatistics(REGION_COMPTE_MEDECINS)));
+        return regions;
+    }
+
+    private static Map<String, Object> decrire(CacheRegionStatistics stats) {
+        Map<String, Object> resultat = new LinkedHashMap<>();
+        if (stats == null) {
+            return resultat;
+        }
+        long hits = stats.getHitCount();
+        long misses = stats.getMissCount();
+        resultat.put("hits", hits);
+        resultat.put("misses", misses);
+        resultat.put("puts", stats.getPutCount());
+        resultat.put("tauxSucces", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        resultat.put("elementsEnMemoire", stats.getElementCountInMemory());
+        return resultat;
+    }
+}
@@ -0,0 +1,137 @@
+package com.consultation.cache;
+
+import com.consultation.events.CreneauxModifies;
+import com.consultation.events.RendezVousModifie;
+import com.consultation.models.StatutCrenau;
+import com.consultation.models.StatutRDV;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.time.LocalDate;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compteurs du tableau de bord médecin, par (médecin, jour) :
+ * rendez-vous non terminés et créneaux libres.
+ *
+ * Un compteur est calculé en base à sa première lecture et servi depuis la
+ * mémoire ensuite. Les événements CreneauxModifies et RendezVousModifie validés
+ * qui le concernent l'invalident : il est recalculé à la lecture suivante.
+ * Appliquer l'écart de l'événement compterait deux fois une modification déjà
+ * visible par un chargement intervenu entre la validation et l'observateur.
+ * reconstruire() supprime les jours passés et recalcule les autres.
+ */
+@ApplicationScoped
+public class CompteursJourMedecin {
+
+    /**
+     * Valeurs d'un compteur à un instant donné.
+     */
+    public record Compteurs(long rdvNonTermines, long crenauxLibres) {
+    }
+
+    private record Cle(Long medecinId, LocalDate date) {
+    }
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final ConcurrentHashMap<Cle, Entree> compteurs = new ConcurrentHashMap<>();
+
+    /**
+     * Retourne les compteurs d'un médecin pour une journée.
+     */
+    public Compteurs get(Long medecinId, LocalDate date) {
+        return compteurs.computeIfAbsent(new Cle(medecinId, date), Entree::new).lire();
+    }
+
+    void surCreneauxModifies(@Observes(during = TransactionPhase.AFTER_SUCCESS) CreneauxModifies evenement) {
+        if (evenement.medecinSupprime()) {
+            compteurs.keySet().removeIf(cle -> cle.medecinId().equals(evenement.medecinId()));
+            return;
+        }
+        for (CreneauxModifies.CreneauModifie c : evenement.creneaux()) {
+            long delta = (c.nouveauStatut() == StatutCrenau.LIBRE ? 1 : 0)
+                    - (c.ancienStatut() == StatutCrenau.LIBRE ? 1 : 0);
+            if (delta != 0) {
+                Entree entree = compteurs.get(new Cle(evenement.medecinId(), c.dateDay()));
+                if (entree != null) {
+                    entree.invalider();
+                }
+            }
+        }
+    }
+
+    void surRendezVousModifie(@Observes(during = TransactionPhase.AFTER_SUCCESS) RendezVousModifie evenement) {
+        long delta = (evenement.nouveauStatut() != StatutRDV.TERMINE ? 1 : 0)
+                - (evenement.ancienStatut() != null && evenement.ancienStatut() != StatutRDV.TERMINE ? 1 : 0);
+        if (delta != 0) {
+            Entree entree = compteurs.get(new Cle(evenement.medecinId(), evenement.dateDay()));
+            if (entree != null) {
+                entree.invalider();
+            }
+        }
+    }
+
+    /**
+     * Supprime les compteurs des jours passés et recalcule les autres depuis la base.
+     */
+    public void reconstruire() {
+        LocalDate aujourdhui = LocalDate.now();
+        compteurs.keySet().removeIf(cle -> cle.date().isBefore(aujourdhui));
+        compteurs.values().forEach(Entree::recharger);
+    }
+
+    /**
+     * Compteurs d'un (médecin, jour). Le chargement et l'invalidation sont
+     * synchronisés : un événement reçu pendant un calcul en base invalide le
+     * résultat de ce calcul.
+     */
+    private final class Entree {
+        private final Cle cle;
+        private long rdvNonTermines;
+        private long crenauxLibres;
+        private boolean charge;
+
+        Entree(Cle cle) {
+            this.cle = cle;
+        }
+
+        synchronized Compteurs lire() {
+            if (!charge) {
+                recharger();
+            }
+            return new Compteurs(rdvNonTermines, crenauxLibres);
+        }
+
+        synchronized void invalider() {
+            charge = false;
+        }
+
+        synchronized void recharger() {
+            rdvNonTermines = em.createQuery(
+                    "SELECT COUNT(r) FROM RendezVous r " +
+                            "WHERE r.creneau.medecin.id = :medecinId " +
+                            "AND r.creneau.dateDay = :date " +
+                            "AND r.statutRdv != :termine",
+                    Long.class)
+                    .setParameter("medecinId", cle.medecinId())
+                    .setParameter("date", cle.date())
+                    .setParameter("termine", StatutRDV.TERMINE)
+                    .getSingleResult();
+            crenauxLibres = em.createQuery(
+                    "SELECT COUNT(c) FROM Crenaux c " +
+                            "WHERE c.medecin.id = :medecinId " +
+                            "AND c.dateDay = :date " +
+                            "AND c.statut = :libre",
+                    Long.class)
+                    .setParameter("medecinId", cle.medecinId())
+                    .setParameter("date", cle.date())
+                    .setParameter("libre", StatutCrenau.LIBRE)
+                    .getSingleResult();
+            charge = true;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.consultation.cache;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Comparator;
+
+/**
+ * Vue immuable d'un créneau LIBRE conservée dans l'index en mémoire.
+ */
+public record CreneauDisponible(Long id, LocalDate dateDay, LocalTime heureDebut, LocalTime heureFin) {
+
+    /**
+     * Ordre de l'index : date, heure de début puis id (pour départager).
+     */
+    public static final Comparator<CreneauDisponible> ORDRE = Comparator
+            .comparing(CreneauDisponible::dateDay)
+            .thenComparing(CreneauDisponible::heureDebut)
+            .thenComparing(CreneauDisponible::id);
+
+    /**
+     * Bornes utilisées pour extraire les créneaux d'une journée de l'index.
+     */
+    static CreneauDisponible debutJournee(LocalDate date) {
+        return new CreneauDisponible(Long.MIN_VALUE, date, LocalTime.MIN, null);
+    }
+
+    static CreneauDisponible finJournee(LocalDate date) {
+        return new CreneauDisponible(Long.MAX_VALUE, date, LocalTime.MAX, null);
+    }
+}
@@ -0,0 +1,131 @@
+package com.consultation.cache;
+
+import com.consultation.events.CreneauxModifies;
+import com.consultation.models.Medecin;
+import com.consultation.models.StatutCrenau;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Index en mémoire des créneaux LIBRE, par médecin, triés par date puis heure de
+ * début.
+ *
+ * Les créneaux d'un médecin sont chargés depuis la base à la première lecture,
+ * puis maintenus à jour à partir des événements CreneauxModifies émis par les
+ * services après validation de la transaction. Les lectures suivantes ne
+ * touchent plus la base, y compris pour un médecin sans créneau libre. Une
+ * entrée n'est créée que pour un médecin existant.
+ */
+@ApplicationScoped
+public class CreneauxDisponiblesIndex {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final ConcurrentHashMap<Long, EntreeMedecin> index = new ConcurrentHashMap<>();
+
+    /**
+     * Retourne les créneaux libres d'un médecin, éventuellement limités à une
+     * journée, triés par date et heure de début.
+     */
+    public List<CreneauDisponible> getCreneauxLibres(Long medecinId, LocalDate date) {
+        EntreeMedecin entree = index.get(medecinId);
+        if (entree == null) {
+            // Seuls les médecins existants entrent dans l'index : un identifiant
+            // quelconque ne le fait pas grossir.
+            if (em.find(Medecin.class, medecinId) == null) {
+                return List.of();
+            }
+            entree = index.computeIfAbsent(medecinId, EntreeMedecin::new);
+        }
+        NavigableSet<CreneauDisponible> creneaux = entree.creneaux();
+        if (date == null) {
+            return List.copyOf(creneaux);
+        }
+        return List.copyOf(creneaux.subSet(
+                CreneauDisponible.debutJournee(date), true,
+                CreneauDisponible.finJournee(date), true));
+    }
+
+    /**
+     * Applique les modifications validées aux médecins déjà présents dans l'index.
+     * Un médecin pas encore chargé lira directement l'état validé en base.
+     */
+    void surCreneauxModifies(@Observes(during = TransactionPhase.AFTER_SUCCESS) CreneauxModifies evenement) {
+        if (evenement.medecinSupprime()) {
+            index.remove(evenement.medecinId());
+            return;
+        }
+        EntreeMedecin entree = index.get(evenement.medecinId());
+        if (entree != null) {
+            entree.appliquer(evenement);
+        }
+    }
+
+    /**
+     * Oublie les créneaux d'un médecin : ils seront rechargés à la prochaine lecture.
+     */
+    public void invalider(Long medecinId) {
+        index.remove(medecinId);
+    }
+
+    /**
+     * Créneaux libres d'un médecin. Le chargement et l'application des événements
+     * sont synchronisés pour qu'aucune modification ne se perde pendant la
+     * lecture initiale ; les lectures suivantes sont sans verrou.
+     */
+    private final class EntreeMedecin {
+        private final Long medecinId;
+        private final ConcurrentSkipListSet<CreneauDisponible> creneaux = new ConcurrentSkipListSet<>(
+                CreneauDisponible.ORDRE);
+        private volatile boolean charge;
+
+        EntreeMedecin(Long medecinId) {
+            this.medecinId = medecinId;
+        }
+
+        NavigableSet<CreneauDisponible> creneaux() {
+            if (!charge) {
+                charger();
+            }
+            return creneaux;
+        }
+
+        private synchronized void charger() {
+            if (charge) {
+                return;
+            }
+            creneaux.addAll(em.createQuery(
+                    "SELECT new com.consultation.cache.CreneauDisponible(c.id, c.dateDay, c.heureDebut, c.heureFin) "
+                            + "FROM Crenaux c WHERE c.medecin.id = :medecinId AND c.statut = :libre",
+                    CreneauDisponible.class)
+                    .setParameter("medecinId", medecinId)
+                    .setParameter("libre", StatutCrenau.LIBRE)
+                    .getResultList());
+            charge = true;
+        }
+
+        synchronized void appliquer(CreneauxModifies evenement) {
+            if (!charge) {
+                return;
+            }
+            for (CreneauxModifies.CreneauModifie c : evenement.creneaux()) {
+                CreneauDisponible creneau = new CreneauDisponible(c.id(), c.dateDay(), c.heureDebut(),
+                        c.heureFin());
+                if (c.nouveauStatut() == StatutCrenau.LIBRE) {
+                    creneaux.add(creneau);
+                } else {
+                    creneaux.remove(creneau);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.consultation.cache;
+
+import com.consultation.filters.CompressionInterceptor;
+import com.consultation.mapper.CustomObjectMapper;
+import com.consultation.services.MedecinService;
+import com.consultation.services.ServiceService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Réponses JSON déjà encodées (UTF-8, et leur version gzip) du catalogue public
+ * des services et des listes de médecins par service.
+ *
+ * Chaque instantané porte la version de VersionsReferentiel lue avant sa
+ * construction ; il n'est reconstruit que lorsque cette version a changé, donc
+ * après une écriture de ServiceService ou MedecinService. Entre deux
+ * écritures, une requête ne fait qu'écrire un tableau d'octets existant.
+ */
+@ApplicationScoped
+public class InstantanesCatalogue {
+
+    /**
+     * Nombre maximal de listes de médecins gardées (une par service demandé).
+     */
+    private static final int MAX_LISTES = 1000;
+
+    private static final ObjectMapper MAPPER = CustomObjectMapper.create();
+
+    /**
+     * Corps JSON encodé, en clair et compressé.
+     */
+    public record Instantane(byte[] json, byte[] gzip, long version) {
+
+        /**
+         * Réponse 200 écrivant l'instantané tel quel, dans sa version gzip si le
+         * client l'accepte.
+         */
+        public Response reponse(String acceptEncoding) {
+            boolean compresse = "gzip".equals(CompressionInterceptor.negocier(acceptEncoding));
+            Response.ResponseBuilder builder = Response.ok(compresse ? gzip : json, MediaType.APPLICATION_JSON)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (compresse) {
+                builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+            return builder.build();
+        }
+    }
+
+    @Inject
+    private VersionsReferentiel versions;
+
+    @Inject
+    private ServiceService serviceService;
+
+    @Inject
+    private MedecinService medecinService;
+
+    private volatile Instantane catalogue;
+
+    private final ConcurrentHashMap<Long, Instantane> medecinsParService = new ConcurrentHashMap<>();
+
+    /**
+     * Corps de GET /services.
+     */
+    public Instantane getCatalogue() {
+        long version = versions.get(VersionsReferentiel.Famille.SERVICES);
+        Instantane instantane = catalogue;
+        if (instantane == null || instantane.version() != version) {
+            instantane = encoder(serviceService.findAll(), version);
+            catalogue = instantane;
+        }
+        return instantane;
+    }
+
+    /**
+     * Corps de GET /medecins/service/{serviceId}.
+     */
+    public Instantane getMedecinsDuService(Long serviceId) {
+        long version = versions.get(VersionsReferentiel.Famille.MEDECINS);
+        Instantane instantane = medecinsParService.get(serviceId);
+        if (instantane == null || instantane.version() != version) {
+            instantane = encoder(medecinService.findDtoByService(serviceId), version);
+            if (medecinsParService.size() >= MAX_LISTES) {
+                medecinsParService.clear();
+            }
+            medecinsParService.put(serviceId, instantane);
+        }
+        return instantane;
+    }
+
+    private static Instantane encoder(Object valeur, long version) {
+        try {
+            byte[] json = MAPPER.writeValueAsBytes(valeur);
+            ByteArrayOutputStream compresse = new ByteArrayOutputStream(json.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compresse)) {
+                gzip.write(json);
+            }
+            return new Instantane(json, compresse.toByteArray(), version);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
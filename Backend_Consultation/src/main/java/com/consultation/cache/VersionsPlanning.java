@@ -0,0 +1,68 @@
+package com.consultation.cache;
+
+import com.consultation.events.CreneauxModifies;
+import com.consultation.events.PlanningModifie;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.ws.rs.core.EntityTag;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Numéro de version des plannings et créneaux de chaque médecin, incrémenté
+ * après chaque modification validée.
+ *
+ * Il sert à construire l'ETag et le Last-Modified des vues calendrier : tant que
+ * la version d'un médecin ne change pas, une vue déjà envoyée au client est
+ * toujours exacte et peut être confirmée par un 304 sans lire la base.
+ */
+@ApplicationScoped
+public class VersionsPlanning {
+
+    /**
+     * Date de démarrage : tous les médecins partent de cette version, et elle
+     * distingue les ETag d'un redémarrage à l'autre.
+     */
+    private static final long DEMARRAGE = System.currentTimeMillis();
+
+    /**
+     * Version d'un médecin et date de sa dernière modification (ms).
+     */
+    public record Version(long numero, long modifieLe) {
+
+        public Date derniereModification() {
+            // HTTP date : précision à la seconde
+            return new Date(modifieLe / 1000 * 1000);
+        }
+    }
+
+    private final ConcurrentHashMap<Long, Version> versions = new ConcurrentHashMap<>();
+
+    public Version get(Long medecinId) {
+        Version version = versions.get(medecinId);
+        return version != null ? version : new Version(0, DEMARRAGE);
+    }
+
+    /**
+     * ETag de la vue des plannings d'un médecin sur une plage de dates.
+     */
+    public EntityTag etag(Long medecinId, Version version, LocalDate dateDebut, LocalDate dateFin) {
+        return new EntityTag(Long.toHexString(DEMARRAGE) + "-" + medecinId + "-" + version.numero()
+                + "-" + dateDebut + "-" + dateFin);
+    }
+
+    void surCreneauxModifies(@Observes(during = TransactionPhase.AFTER_SUCCESS) CreneauxModifies evenement) {
+        incrementer(evenement.medecinId());
+    }
+
+    void surPlanningModifie(@Observes(during = TransactionPhase.AFTER_SUCCESS) PlanningModifie evenement) {
+        incrementer(evenement.medecinId());
+    }
+
+    private void incrementer(Long medecinId) {
+        long maintenant = System.currentTimeMillis();
+        versions.compute(medecinId, (id, v) -> new Version(v != null ? v.numero() + 1 : 1, maintenant));
+    }
+}
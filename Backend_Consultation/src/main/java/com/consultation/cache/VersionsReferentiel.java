@@ -0,0 +1,54 @@
+package com.consultation.cache;
+
+import com.consultation.events.ReferentielModifie;
+import com.consultation.events.UtilisateurModifie;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Numéro de version par famille de ressources en lecture seule côté public
+ * (catalogue des services, listes de médecins), incrémenté après chaque
+ * écriture validée. Sert à construire les ETag des réponses HTTP.
+ */
+@ApplicationScoped
+public class VersionsReferentiel {
+
+    /**
+     * Familles de ressources versionnées.
+     */
+    public enum Famille {
+        SERVICES,
+        MEDECINS
+    }
+
+    private final Map<Famille, AtomicLong> versions = new EnumMap<>(Famille.class);
+
+    public VersionsReferentiel() {
+        for (Famille famille : Famille.values()) {
+            versions.put(famille, new AtomicLong());
+        }
+    }
+
+    public long get(Famille famille) {
+        return versions.get(famille).get();
+    }
+
+    void surReferentielModifie(@Observes(during = TransactionPhase.AFTER_SUCCESS) ReferentielModifie evenement) {
+        // Les listes de médecins affichent le nom du service : elles changent aussi
+        if (evenement.famille() == ReferentielModifie.Famille.SERVICE) {
+            versions.get(Famille.SERVICES).incrementAndGet();
+        }
+        versions.get(Famille.MEDECINS).incrementAndGet();
+    }
+
+    /**
+     * Nom, téléphone ou statut actif d'un utilisateur (éventuellement médecin).
+     */
+    void surUtilisateurModifie(@Observes(during = TransactionPhase.AFTER_COMPLETION) UtilisateurModifie evenement) {
+        versions.get(Famille.MEDECINS).incrementAndGet();
+    }
+}
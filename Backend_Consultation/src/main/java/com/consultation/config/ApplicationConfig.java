@@ -1,5 +1,7 @@
 package com.consultation.config;
 
+import com.consultation.metrics.MetriquesFilter;
+import com.consultation.metrics.jfr.SerialisationJsonInterceptor;
 import org.glassfish.jersey.jackson.JacksonFeature;
 import jakarta.ws.rs.ApplicationPath;
 import org.glassfish.jersey.server.ResourceConfig;
@@ -10,5 +12,7 @@ public class ApplicationConfig extends ResourceConfig {
 		super();
 		packages("com.consultation.resources", "com.consultation.filters");
 		register(JacksonFeature.class);
+		register(MetriquesFilter.class);
+		register(SerialisationJsonInterceptor.class);
 	}
 }
@@ -0,0 +1,29 @@
+package com.consultation.config;
+
+/**
+ * Paramètres d'exploitation de l'application.
+ * Ils sont lus dans les propriétés système de la JVM, par exemple
+ * -Dconsultation.bcrypt.cout=12 (ou via create-system-properties sous Payara).
+ */
+public final class Parametres {
+
+    private Parametres() {
+    }
+
+    public static int entier(String cle, int defaut) {
+        return Integer.getInteger(cle, defaut);
+    }
+
+    public static long entierLong(String cle, long defaut) {
+        return Long.getLong(cle, defaut);
+    }
+
+    public static String texte(String cle, String defaut) {
+        return System.getProperty(cle, defaut);
+    }
+
+    public static boolean booleen(String cle, boolean defaut) {
+        String valeur = System.getProperty(cle);
+        return valeur != null ? Boolean.parseBoolean(valeur) : defaut;
+    }
+}
@@ -0,0 +1,9 @@
+package com.consultation.dto;
+
+import com.consultation.models.Role;
+
+/**
+ * Ligne de projection : nombre d'utilisateurs pour un rôle donné.
+ */
+public record CompteParRole(Role role, Long nombre) {
+}
@@ -0,0 +1,9 @@
+package com.consultation.dto;
+
+import com.consultation.models.StatutRDV;
+
+/**
+ * Ligne de projection : nombre de rendez-vous pour un statut donné.
+ */
+public record CompteParStatutRdv(StatutRDV statut, Long nombre) {
+}
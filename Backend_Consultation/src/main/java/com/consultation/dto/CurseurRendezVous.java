@@ -0,0 +1,38 @@
+package com.consultation.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Base64;
+
+/**
+ * Position dans un historique trié par (dateDay, heureDebut, id) décroissants.
+ * Transmise au client sous forme d'un jeton opaque (base64url).
+ */
+public record CurseurRendezVous(LocalDate dateDay, LocalTime heureDebut, Long id) {
+
+    public static CurseurRendezVous apres(LigneRendezVous ligne) {
+        return new CurseurRendezVous(ligne.dateDay(), ligne.heureDebut(), ligne.id());
+    }
+
+    public String encoder() {
+        String brut = dateDay + "|" + heureDebut + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(brut.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException si le jeton n'a pas été produit par encoder()
+     */
+    public static CurseurRendezVous decoder(String jeton) {
+        try {
+            String[] parties = new String(Base64.getUrlDecoder().decode(jeton), StandardCharsets.UTF_8).split("\\|");
+            if (parties.length != 3) {
+                throw new IllegalArgumentException("Curseur invalide");
+            }
+            return new CurseurRendezVous(LocalDate.parse(parties[0]), LocalTime.parse(parties[1]),
+                    Long.parseLong(parties[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Curseur invalide");
+        }
+    }
+}
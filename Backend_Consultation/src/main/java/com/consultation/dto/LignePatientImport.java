@@ -0,0 +1,12 @@
+package com.consultation.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Ligne d'un fichier d'import de patients (POST /patients/import), en CSV ou
+ * en NDJSON. dateNaissance est au format yyyy-MM-dd.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record LignePatientImport(String nom, String prenom, String email, String telephone, String motDePasse,
+        String dateNaissance, String adresse) {
+}
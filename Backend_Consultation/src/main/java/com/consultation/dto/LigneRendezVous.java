@@ -0,0 +1,28 @@
+package com.consultation.dto;
+
+import com.consultation.models.StatutRDV;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Ligne d'historique de rendez-vous (pages et exports NDJSON), projetée
+ * directement depuis la base avec son créneau, son patient et son médecin.
+ */
+public record LigneRendezVous(
+        Long id,
+        String motif,
+        StatutRDV statutRdv,
+        @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss") LocalDateTime dateCreation,
+        Long creneauId,
+        @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd") LocalDate dateDay,
+        @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "HH:mm") LocalTime heureDebut,
+        @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "HH:mm") LocalTime heureFin,
+        Long patientId,
+        String patientNom,
+        String patientPrenom,
+        Long medecinId,
+        String medecinNom,
+        String medecinPrenom) {
+}
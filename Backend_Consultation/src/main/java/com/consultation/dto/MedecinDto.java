@@ -0,0 +1,20 @@
+package com.consultation.dto;
+
+import com.consultation.models.Role;
+
+/**
+ * Ligne de la liste des médecins (GET /medecins), projetée directement depuis
+ * la base.
+ */
+public record MedecinDto(Long id, String nom, String prenom, String email, String telephone, String role,
+        boolean actif, String specialite, int dureeSeance, String adresseCabinet, Long serviceId) {
+
+    /**
+     * Constructeur utilisé par la requête JPQL (SELECT new ...).
+     */
+    public MedecinDto(Long id, String nom, String prenom, String email, String telephone, Role role,
+            Boolean actif, String specialite, Integer dureeSeance, String adresseCabinet, Long serviceId) {
+        this(id, nom, prenom, email, telephone, role != null ? role.name() : null, Boolean.TRUE.equals(actif),
+                specialite, dureeSeance != null ? dureeSeance : 0, adresseCabinet, serviceId);
+    }
+}
@@ -0,0 +1,20 @@
+package com.consultation.dto;
+
+/**
+ * Ligne de la liste des médecins d'un service (GET /medecins/service/{id}),
+ * projetée directement depuis la base.
+ */
+public record MedecinServiceDto(Long id, String nom, String prenom, String email, String telephone,
+        String specialite, int dureeSeance, String adresseCabinet, boolean actif, Long serviceId,
+        String serviceName) {
+
+    /**
+     * Constructeur utilisé par la requête JPQL (SELECT new ...).
+     */
+    public MedecinServiceDto(Long id, String nom, String prenom, String email, String telephone,
+            String specialite, Integer dureeSeance, String adresseCabinet, Boolean actif, Long serviceId,
+            String serviceName) {
+        this(id, nom, prenom, email, telephone, specialite, dureeSeance != null ? dureeSeance : 0, adresseCabinet,
+                Boolean.TRUE.equals(actif), serviceId, serviceName);
+    }
+}
@@ -0,0 +1,10 @@
+package com.consultation.dto;
+
+import java.util.List;
+
+/**
+ * Page d'historique de rendez-vous. curseurSuivant est null sur la dernière
+ * page ; sinon il est à renvoyer tel quel dans le paramètre "curseur".
+ */
+public record PageRendezVous(List<LigneRendezVous> elements, String curseurSuivant) {
+}
@@ -0,0 +1,27 @@
+package com.consultation.dto;
+
+import com.consultation.models.Role;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import java.time.LocalDate;
+
+/**
+ * Patient et utilisateur associé (GET /patients), projetés en une seule ligne
+ * depuis la base. Le hash du mot de passe n'est pas exposé.
+ */
+public record PatientDto(Long id, UtilisateurDto utilisateur,
+        @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd") LocalDate dateNaissance,
+        String adresse) {
+
+    public record UtilisateurDto(Long id, String nom, String prenom, String telephone, String email, Role role,
+            boolean actif) {
+    }
+
+    /**
+     * Constructeur utilisé par la requête JPQL (SELECT new ...).
+     */
+    public PatientDto(Long id, LocalDate dateNaissance, String adresse, Long utilisateurId, String nom,
+            String prenom, String telephone, String email, Role role, Boolean actif) {
+        this(id, new UtilisateurDto(utilisateurId, nom, prenom, telephone, email, role, Boolean.TRUE.equals(actif)),
+                dateNaissance, adresse);
+    }
+}
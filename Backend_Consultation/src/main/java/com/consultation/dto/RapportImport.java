@@ -0,0 +1,17 @@
+package com.consultation.dto;
+
+import java.util.List;
+
+/**
+ * Résultat d'un import de patients. detailErreurs est limité aux premières
+ * erreurs (erreursTronquees vaut alors true) ; erreurs les compte toutes.
+ */
+public record RapportImport(long lignes, long importes, long erreurs, List<ErreurImport> detailErreurs,
+        boolean erreursTronquees, long dureeMs) {
+
+    /**
+     * Ligne rejetée : numéro de ligne dans le fichier (en-tête CSV compris).
+     */
+    public record ErreurImport(long ligne, String email, String erreur) {
+    }
+}
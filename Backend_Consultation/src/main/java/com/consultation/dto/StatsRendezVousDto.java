@@ -0,0 +1,9 @@
+package com.consultation.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Statistiques globales des rendez-vous (GET /rendezvous/stats).
+ */
+public record StatsRendezVousDto(long total, long realisees, @JsonProperty("a_venir") long aVenir) {
+}
@@ -0,0 +1,7 @@
+package com.consultation.dto;
+
+/**
+ * Nombre total de services médicaux (GET /services/stats).
+ */
+public record StatsServicesDto(long total) {
+}
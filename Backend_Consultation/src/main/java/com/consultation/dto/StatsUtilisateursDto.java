@@ -0,0 +1,7 @@
+package com.consultation.dto;
+
+/**
+ * Statistiques globales des utilisateurs par rôle (GET /utilisateurs/stats).
+ */
+public record StatsUtilisateursDto(long total, long patients, long medecins, long admins) {
+}
@@ -0,0 +1,51 @@
+package com.consultation.events;
+
+import com.consultation.models.Crenaux;
+import com.consultation.models.StatutCrenau;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Événement CDI émis par la couche service lorsqu'un ou plusieurs créneaux d'un
+ * médecin changent de statut, sont créés ou supprimés.
+ * Les observateurs l'écoutent avec TransactionPhase.AFTER_SUCCESS pour ne voir
+ * que les modifications réellement validées.
+ */
+public record CreneauxModifies(Long medecinId, List<CreneauModifie> creneaux, boolean medecinSupprime) {
+
+    /**
+     * Détail d'un créneau modifié. ancienStatut est null pour un créneau créé.
+     */
+    public record CreneauModifie(Long id, LocalDate dateDay, LocalTime heureDebut, LocalTime heureFin,
+            StatutCrenau ancienStatut, StatutCrenau nouveauStatut) {
+    }
+
+    /**
+     * Changement de statut d'un créneau existant
+     */
+    public static CreneauxModifies changement(Crenaux creneau, StatutCrenau ancienStatut) {
+        return new CreneauxModifies(creneau.getMedecin().getId(),
+                List.of(detail(creneau, ancienStatut)), false);
+    }
+
+    /**
+     * Création de nouveaux créneaux pour un médecin
+     */
+    public static CreneauxModifies creation(Long medecinId, List<Crenaux> creneaux) {
+        return new CreneauxModifies(medecinId,
+                creneaux.stream().map(c -> detail(c, null)).toList(), false);
+    }
+
+    /**
+     * Suppression d'un médecin (et de tous ses créneaux en cascade)
+     */
+    public static CreneauxModifies suppressionMedecin(Long medecinId) {
+        return new CreneauxModifies(medecinId, List.of(), true);
+    }
+
+    private static CreneauModifie detail(Crenaux c, StatutCrenau ancienStatut) {
+        return new CreneauModifie(c.getId(), c.getDateDay(), c.getHeureDebut(), c.getHeureFin(),
+                ancienStatut, c.getStatut());
+    }
+}
@@ -0,0 +1,8 @@
+package com.consultation.events;
+
+/**
+ * Événement CDI émis lorsqu'un ou plusieurs plannings journaliers d'un médecin
+ * sont créés.
+ */
+public record PlanningModifie(Long medecinId) {
+}
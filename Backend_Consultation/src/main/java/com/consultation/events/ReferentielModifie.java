@@ -0,0 +1,22 @@
+package com.consultation.events;
+
+/**
+ * Événement CDI émis lorsqu'une donnée de référence (service médical ou profil
+ * médecin) est créée, modifiée ou supprimée.
+ * Les observateurs l'écoutent avec TransactionPhase.AFTER_SUCCESS.
+ */
+public record ReferentielModifie(Famille famille, Long id) {
+
+    public enum Famille {
+        SERVICE,
+        MEDECIN
+    }
+
+    public static ReferentielModifie service(Long id) {
+        return new ReferentielModifie(Famille.SERVICE, id);
+    }
+
+    public static ReferentielModifie medecin(Long id) {
+        return new ReferentielModifie(Famille.MEDECIN, id);
+    }
+}
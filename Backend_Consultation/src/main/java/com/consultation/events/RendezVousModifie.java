@@ -0,0 +1,18 @@
+package com.consultation.events;
+
+import com.consultation.models.RendezVous;
+import com.consultation.models.StatutRDV;
+import java.time.LocalDate;
+
+/**
+ * Événement CDI émis lorsqu'un rendez-vous est créé ou change de statut.
+ * ancienStatut est null pour un rendez-vous créé.
+ */
+public record RendezVousModifie(Long rendezVousId, Long medecinId, LocalDate dateDay, StatutRDV ancienStatut,
+        StatutRDV nouveauStatut) {
+
+    public static RendezVousModifie de(RendezVous rdv, StatutRDV ancienStatut) {
+        return new RendezVousModifie(rdv.getId(), rdv.getCreneau().getMedecin().getId(),
+                rdv.getCreneau().getDateDay(), ancienStatut, rdv.getStatutRdv());
+    }
+}
@@ -0,0 +1,8 @@
+package com.consultation.events;
+
+/**
+ * Événement CDI émis lorsqu'un utilisateur (ou le patient / médecin associé) est
+ * modifié ou supprimé.
+ */
+public record UtilisateurModifie(Long utilisateurId) {
+}
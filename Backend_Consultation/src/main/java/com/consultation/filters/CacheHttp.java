@@ -0,0 +1,32 @@
+package com.consultation.filters;
+
+import com.consultation.cache.VersionsReferentiel;
+import jakarta.ws.rs.NameBinding;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Active la validation HTTP (ETag, If-None-Match, 304) sur une méthode GET dont
+ * la réponse ne dépend que de l'URL et des familles de données indiquées.
+ * Voir CacheHttpFilter.
+ */
+@NameBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.TYPE, ElementType.METHOD })
+public @interface CacheHttp {
+
+    /**
+     * Familles dont dépend la réponse.
+     */
+    VersionsReferentiel.Famille[] value() default {};
+
+    /**
+     * true pour un endpoint public : la réponse peut être gardée par un CDN ou un
+     * proxy partagé pendant maxAge secondes.
+     */
+    boolean publique() default false;
+
+    int maxAge() default 60;
+}
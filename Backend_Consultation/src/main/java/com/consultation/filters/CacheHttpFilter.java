@@ -0,0 +1,113 @@
+package com.consultation.filters;
+
+import com.consultation.cache.VersionsReferentiel;
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.Provider;
+import java.io.IOException;
+
+/**
+ * Validation HTTP des ressources annotées @CacheHttp.
+ *
+ * L'ETag est calculé avant l'appel de la ressource, à partir de l'URL et des
+ * versions des familles de données (VersionsReferentiel). Si le client envoie
+ * déjà cet ETag dans If-None-Match, la requête est terminée par un 304 sans
+ * accès à la base ni sérialisation JSON. Sinon, la réponse 200 reçoit l'ETag et
+ * un Cache-Control adapté (public pour un CDN, ou privé à revalider).
+ *
+ * Exécuté après JWTAuthFilter : un endpoint protégé n'est jamais validé pour un
+ * client non authentifié.
+ */
+@Provider
+@CacheHttp
+@Priority(Priorities.USER)
+public class CacheHttpFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    /**
+     * Propriété de requête portant l'ETag calculé.
+     */
+    static final String PROPRIETE_ETAG = "cacheHttp.etag";
+
+    /**
+     * Distingue les ETag d'un démarrage à l'autre (les compteurs repartent à 0).
+     */
+    private static final String DEMARRAGE = Long.toHexString(System.currentTimeMillis());
+
+    @Inject
+    private VersionsReferentiel versions;
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) throws IOException {
+        CacheHttp config = config();
+        if (config == null || !"GET".equalsIgnoreCase(requestContext.getMethod())) {
+            return;
+        }
+        EntityTag etag = etag(config, requestContext);
+        requestContext.setProperty(PROPRIETE_ETAG, etag);
+
+        if (ConditionsHttp.correspond(requestContext.getHeaderString(HttpHeaders.IF_NONE_MATCH), etag)) {
+            requestContext.abortWith(Response.notModified(etag)
+                    .header(HttpHeaders.CACHE_CONTROL, cacheControl(config))
+                    .build());
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext)
+            throws IOException {
+        Object etag = requestContext.getProperty(PROPRIETE_ETAG);
+        CacheHttp config = config();
+        if (etag == null || config == null || responseContext.getStatus() != 200) {
+            return;
+        }
+        responseContext.getHeaders().putSingle(HttpHeaders.ETAG, etag);
+        responseContext.getHeaders().putSingle(HttpHeaders.CACHE_CONTROL, cacheControl(config));
+    }
+
+    private CacheHttp config() {
+        if (resourceInfo.getResourceMethod() == null) {
+            return null;
+        }
+        CacheHttp config = resourceInfo.getResourceMethod().getAnnotation(CacheHttp.class);
+        return config != null ? config : resourceInfo.getResourceClass().getAnnotation(CacheHttp.class);
+    }
+
+    private EntityTag etag(CacheHttp config, ContainerRequestContext requestContext) {
+        StringBuilder valeur = new StringBuilder(DEMARRAGE);
+        for (VersionsReferentiel.Famille famille : config.value()) {
+            valeur.append('-').append(versions.get(famille));
+        }
+        valeur.append('-').append(Integer.toHexString(
+                requestContext.getUriInfo().getRequestUri().getRawPath().hashCode()));
+        String query = requestContext.getUriInfo().getRequestUri().getRawQuery();
+        if (query != null) {
+            valeur.append('-').append(Integer.toHexString(query.hashCode()));
+        }
+        // Le corps compressé est une autre représentation : ETag distinct
+        String encodage = CompressionInterceptor.negocier(
+                requestContext.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+        if (encodage != null) {
+            valeur.append('-').append(encodage);
+        }
+        return new EntityTag(valeur.toString());
+    }
+
+    private static String cacheControl(CacheHttp config) {
+        return config.publique()
+                ? "public, max-age=" + config.maxAge()
+                : "private, no-cache";
+    }
+}
@@ -0,0 +1,273 @@
+package com.consultation.filters;
+
+import com.consultation.config.Parametres;
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compression gzip ou deflate des réponses, négociée d'après Accept-Encoding.
+ *
+ * Les premiers octets du corps sont gardés dans un tampon de la taille du seuil
+ * (consultation.compression.seuil, 1024 par défaut) : une réponse plus petite
+ * est envoyée telle quelle. Au-delà, le tampon puis la suite du corps passent
+ * dans le compresseur au fil de l'écriture, sans mise en mémoire de la réponse
+ * complète. Les réponses déjà encodées (Content-Encoding présent) et les flux
+ * SSE ne sont pas touchés.
+ */
+@Provider
+@Priority(Priorities.ENTITY_CODER)
+public class CompressionInterceptor implements WriterInterceptor {
+
+    private static final int SEUIL = Parametres.entier("consultation.compression.seuil", 1024);
+
+    private static final int NIVEAU = Parametres.entier("consultation.compression.niveau", Deflater.DEFAULT_COMPRESSION);
+
+    @Context
+    private HttpHeaders requestHeaders;
+
+    @Inject
+    private StatistiquesCompression statistiques;
+
+    /**
+     * Encodage à utiliser pour une valeur d'Accept-Encoding : "gzip", "deflate"
+     * ou null. gzip est préféré quand les deux sont acceptés.
+     */
+    public static String negocier(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        // "*" ne couvre que les codages absents de la liste (RFC 9110)
+        Boolean gzip = null;
+        Boolean deflate = null;
+        boolean tous = false;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parties = element.trim().split(";");
+            String codage = parties[0].trim().toLowerCase();
+            boolean accepte = parties.length < 2 || !parties[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+            if (codage.equals("gzip")) {
+                gzip = accepte;
+            } else if (codage.equals("deflate")) {
+                deflate = accepte;
+            } else if (codage.equals("*")) {
+                tous = accepte;
+            }
+        }
+        if (gzip != null ? gzip : tous) {
+            return "gzip";
+        }
+        return (deflate != null ? deflate : tous) ? "deflate" : null;
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+        MultivaluedMap<String, Object> headers = context.getHeaders();
+        MediaType type = context.getMediaType();
+        if (headers.containsKey(HttpHeaders.CONTENT_ENCODING)
+                || (type != null && type.isCompatible(MediaType.SERVER_SENT_EVENTS_TYPE))) {
+            context.proceed();
+            return;
+        }
+        String encodage = negocier(requestHeaders.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+        if (encodage == null) {
+            context.proceed();
+            return;
+        }
+
+        ajouterVary(headers);
+        FluxCompression flux = new FluxCompression(context.getOutputStream(), headers, encodage);
+        context.setOutputStream(flux);
+        try {
+            context.proceed();
+        } finally {
+            flux.terminer();
+        }
+    }
+
+    /**
+     * Ajoute Accept-Encoding à l'en-tête Vary, en conservant les valeurs déjà
+     * présentes.
+     */
+    private static void ajouterVary(MultivaluedMap<String, Object> headers) {
+        List<Object> valeurs = headers.get(HttpHeaders.VARY);
+        if (valeurs == null || valeurs.isEmpty()) {
+            headers.putSingle(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            return;
+        }
+        StringBuilder vary = new StringBuilder();
+        for (Object valeur : valeurs) {
+            for (String element : String.valueOf(valeur).split(",")) {
+                String nom = element.trim();
+                if (nom.equals("*") || nom.equalsIgnoreCase(HttpHeaders.ACCEPT_ENCODING)) {
+                    return;
+                }
+                if (!nom.isEmpty()) {
+                    vary.append(vary.length() == 0 ? "" : ", ").append(nom);
+                }
+            }
+        }
+        headers.putSingle(HttpHeaders.VARY, vary.append(", ").append(HttpHeaders.ACCEPT_ENCODING).toString());
+    }
+
+    /**
+     * Flux tampon jusqu'au seuil, puis compressé. Les en-têtes sont modifiés
+     * avant le premier octet écrit vers le conteneur, donc avant leur envoi.
+     *
+     * dureeNanos ne compte que le travail du compresseur : le temps passé à
+     * écrire vers le conteneur (bloquant si le client lit lentement) est mesuré
+     * par CompteurOctets et retranché.
+     */
+    private final class FluxCompression extends OutputStream {
+        private final OutputStream sortie;
+        private final MultivaluedMap<String, Object> headers;
+        private final String encodage;
+        private final byte[] tampon = new byte[SEUIL];
+        private int taille;
+        private long octetsEntree;
+        private long dureeNanos;
+        private CompteurOctets compresse;
+        private DeflaterOutputStream compresseur;
+        private boolean termine;
+
+        FluxCompression(OutputStream sortie, MultivaluedMap<String, Object> headers, String encodage) {
+            this.sortie = sortie;
+            this.headers = headers;
+            this.encodage = encodage;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            octetsEntree += len;
+            if (compresseur == null) {
+                if (taille + len <= tampon.length) {
+                    System.arraycopy(b, off, tampon, taille, len);
+                    taille += len;
+                    return;
+                }
+                demarrerCompression();
+            }
+            long debut = System.nanoTime();
+            compresseur.write(b, off, len);
+            dureeNanos += System.nanoTime() - debut;
+        }
+
+        /**
+         * Tant que le corps tient dans le tampon, un flush (Jackson en fait un en
+         * fin d'écriture) ne fait rien : la décision de compresser est prise à la
+         * fin. Ensuite il est transmis au compresseur (SYNC_FLUSH), ce qui laisse
+         * passer les exports NDJSON au fil de l'eau.
+         */
+        @Override
+        public void flush() throws IOException {
+            if (compresseur != null) {
+                long debut = System.nanoTime();
+                compresseur.flush();
+                dureeNanos += System.nanoTime() - debut;
+            }
+        }
+
+        private void demarrerCompression() throws IOException {
+            headers.putSingle(HttpHeaders.CONTENT_ENCODING, encodage);
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            compresse = new CompteurOctets(sortie);
+            long debut = System.nanoTime();
+            if (encodage.equals("gzip")) {
+                compresseur = new GZIPOutputStream(compresse, 8192, true) {
+                    {
+                        def.setLevel(NIVEAU);
+                    }
+                };
+            } else {
+                compresseur = new DeflaterOutputStream(compresse, new Deflater(NIVEAU), 8192, true) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            def.end();
+                        }
+                    }
+                };
+            }
+            compresseur.write(tampon, 0, taille);
+            dureeNanos += System.nanoTime() - debut;
+        }
+
+        void terminer() throws IOException {
+            if (termine) {
+                return;
+            }
+            termine = true;
+            if (compresseur == null) {
+                sortie.write(tampon, 0, taille);
+                statistiques.nonCompressee();
+                return;
+            }
+            long debut = System.nanoTime();
+            compresseur.close();
+            dureeNanos += System.nanoTime() - debut;
+            statistiques.compressee(octetsEntree, compresse.octets, Math.max(0, dureeNanos - compresse.nanos));
+        }
+    }
+
+    /**
+     * Compte les octets compressés et le temps passé à les écrire vers le
+     * conteneur ; ne ferme pas le flux du conteneur.
+     */
+    private static final class CompteurOctets extends FilterOutputStream {
+        private long octets;
+        private long nanos;
+
+        CompteurOctets(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            long debut = System.nanoTime();
+            out.write(b);
+            nanos += System.nanoTime() - debut;
+            octets++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            long debut = System.nanoTime();
+            out.write(b, off, len);
+            nanos += System.nanoTime() - debut;
+            octets += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            long debut = System.nanoTime();
+            out.flush();
+            nanos += System.nanoTime() - debut;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
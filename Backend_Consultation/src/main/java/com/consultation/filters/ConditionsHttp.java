@@ -0,0 +1,45 @@
+package com.consultation.filters;
+
+import jakarta.ws.rs.core.EntityTag;
+
+/**
+ * Comparaison d'un ETag avec l'en-tête If-None-Match, partagée par
+ * CacheHttpFilter et les ressources qui gèrent elles-mêmes la revalidation.
+ */
+public final class ConditionsHttp {
+
+    private ConditionsHttp() {
+    }
+
+    /**
+     * Forme de l'ETag dans les en-têtes : valeur entre guillemets, précédée de
+     * W/ pour un ETag faible.
+     */
+    public static String formater(EntityTag etag) {
+        String valeur = '"' + etag.getValue() + '"';
+        return etag.isWeak() ? "W/" + valeur : valeur;
+    }
+
+    /**
+     * If-None-Match peut contenir plusieurs ETag séparés par des virgules, ou "*".
+     * La comparaison est faible (RFC 9110) : le préfixe W/ est ignoré des deux
+     * côtés.
+     */
+    public static boolean correspond(String ifNoneMatch, EntityTag etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String attendu = sansPrefixeFaible(formater(etag));
+        for (String tag : ifNoneMatch.split(",")) {
+            String t = sansPrefixeFaible(tag.trim());
+            if (t.equals("*") || t.equals(attendu)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String sansPrefixeFaible(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
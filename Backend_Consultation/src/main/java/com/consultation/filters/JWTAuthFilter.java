@@ -1,11 +1,14 @@
 package com.consultation.filters;
 
-import io.jsonwebtoken.Claims;
+import com.consultation.resources.MetriquesResource;
+import com.consultation.security.JWTUtil;
+import com.consultation.security.PrincipalCache;
+import com.consultation.security.PrincipalResolu;
 import io.jsonwebtoken.ExpiredJwtException;
-import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.security.SignatureException;
 import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
 import jakarta.ws.rs.Priorities;
 import jakarta.ws.rs.container.ContainerRequestContext;
 import jakarta.ws.rs.container.ContainerRequestFilter;
@@ -13,10 +16,10 @@ import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.ext.Provider;
 
-import javax.crypto.spec.SecretKeySpec;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.security.Key;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Filtre JWT pour sécuriser les endpoints REST.
@@ -26,18 +29,36 @@ import java.security.Key;
  * - POST /auth/login
  * - POST /auth/register
  * - OPTIONS (requêtes CORS preflight)
+ * - GET /metrics avec le jeton de collecte, ou sans token si
+ *   consultation.metriques.publiques vaut true (sinon token ADMIN)
+ *
+ * GET /creneaux/medecin/{id}/flux accepte aussi un token de portée
+ * "flux-creneaux:{id}" dans le paramètre ?jeton= : un EventSource de
+ * navigateur ne peut pas envoyer d'en-tête Authorization. Ce token de courte
+ * durée est obtenu par GET /creneaux/medecin/{id}/flux/jeton et n'est accepté
+ * nulle part ailleurs, ni en Bearer.
+ *
+ * La vérification est déléguée à JWTUtil, qui garde en cache les tokens déjà
+ * vérifiés. L'identité résolue (PrincipalResolu) est attachée à la requête
+ * dans la propriété "principal", depuis PrincipalCache.
  */
 @Provider
 @Priority(Priorities.AUTHENTICATION)
 public class JWTAuthFilter implements ContainerRequestFilter {
 
-    // Clé secrète pour valider les tokens (doit être identique à celle dans
-    // AuthService)
-    private static final String SECRET_KEY = "super-secret-key-very-long-and-secure-123";
+    /**
+     * Préfixe de la portée des tokens du flux SSE des créneaux, suivi de l'id
+     * du médecin.
+     */
+    public static final String PORTEE_FLUX_CRENEAUX = "flux-creneaux:";
 
-    private Key getSigningKey() {
-        return new SecretKeySpec(SECRET_KEY.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
-    }
+    private static final Pattern FLUX_CRENEAUX = Pattern.compile("creneaux/medecin/(\\d+)/flux");
+
+    @Inject
+    private JWTUtil jwtUtil;
+
+    @Inject
+    private PrincipalCache principalCache;
 
     @Override
     public void filter(ContainerRequestContext requestContext) throws IOException {
@@ -45,35 +66,51 @@ public class JWTAuthFilter implements ContainerRequestFilter {
         String method = requestContext.getMethod();
 
         // Endpoints publics - pas de vérification JWT
-        if (isPublicEndpoint(path, method)) {
+        if (isPublicEndpoint(path, method, requestContext.getHeaderString(HttpHeaders.AUTHORIZATION))) {
             return;
         }
 
         // Récupérer le header Authorization
         String authHeader = requestContext.getHeaderString(HttpHeaders.AUTHORIZATION);
-
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+        String token;
+        String porteeAttendue = null;
+
+        if (authHeader == null && "GET".equalsIgnoreCase(method)
+                && requestContext.getUriInfo().getQueryParameters().containsKey("jeton")) {
+            // Token de portée limitée, seulement pour le flux SSE des créneaux
+            Matcher flux = FLUX_CRENEAUX.matcher(path);
+            if (!flux.matches()) {
+                abortWithUnauthorized(requestContext, "Token manquant ou format invalide");
+                return;
+            }
+            token = requestContext.getUriInfo().getQueryParameters().getFirst("jeton");
+            porteeAttendue = PORTEE_FLUX_CRENEAUX + flux.group(1);
+        } else if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             abortWithUnauthorized(requestContext, "Token manquant ou format invalide");
             return;
+        } else {
+            // Extraire le token (enlever "Bearer ")
+            token = authHeader.substring(7);
         }
 
-        // Extraire le token (enlever "Bearer ")
-        String token = authHeader.substring(7);
-
         try {
-            // Valider et parser le token
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            // Valider le token (ou le retrouver dans le cache des tokens vérifiés)
+            JWTUtil.JetonVerifie jeton = jwtUtil.verifier(token);
+            if (!Objects.equals(jeton.portee(), porteeAttendue)) {
+                abortWithUnauthorized(requestContext, "Token non valable pour cette ressource");
+                return;
+            }
 
             // Ajouter les informations de l'utilisateur au contexte de la requête
-            String email = claims.getSubject();
-            String role = claims.get("role", String.class);
+            requestContext.setProperty("userEmail", jeton.email());
+            requestContext.setProperty("userRole", jeton.role());
+            requestContext.setProperty("jeton", jeton);
 
-            requestContext.setProperty("userEmail", email);
-            requestContext.setProperty("userRole", role);
+            // Identité résolue (null si l'utilisateur n'existe plus sous cet email)
+            PrincipalResolu principal = principalCache.resoudre(jeton.email());
+            if (principal != null) {
+                requestContext.setProperty("principal", principal);
+            }
 
         } catch (ExpiredJwtException e) {
             abortWithUnauthorized(requestContext, "Token expiré");
@@ -89,7 +126,7 @@ public class JWTAuthFilter implements ContainerRequestFilter {
     /**
      * Vérifie si l'endpoint est public (ne nécessite pas d'authentification)
      */
-    private boolean isPublicEndpoint(String path, String method) {
+    private boolean isPublicEndpoint(String path, String method, String authorization) {
         // OPTIONS pour les requêtes CORS preflight
         if ("OPTIONS".equalsIgnoreCase(method)) {
             return true;
@@ -105,6 +142,11 @@ public class JWTAuthFilter implements ContainerRequestFilter {
             return true;
         }
 
+        // Collecte Prometheus
+        if (path.equals("metrics") && "GET".equalsIgnoreCase(method)) {
+            return MetriquesResource.collecteAutorisee(authorization);
+        }
+
         return false;
     }
 
@@ -0,0 +1,63 @@
+package com.consultation.filters;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compteurs de CompressionInterceptor.
+ */
+@ApplicationScoped
+public class StatistiquesCompression {
+
+    private final LongAdder compressees = new LongAdder();
+    private final LongAdder nonCompressees = new LongAdder();
+    private final LongAdder octetsAvant = new LongAdder();
+    private final LongAdder octetsApres = new LongAdder();
+    private final LongAdder dureeNanos = new LongAdder();
+
+    void compressee(long avant, long apres, long nanos) {
+        compressees.increment();
+        octetsAvant.add(avant);
+        octetsApres.add(apres);
+        dureeNanos.add(nanos);
+    }
+
+    /**
+     * Réponse acceptant la compression mais restée sous le seuil.
+     */
+    void nonCompressee() {
+        nonCompressees.increment();
+    }
+
+    public long getCompressees() {
+        return compressees.sum();
+    }
+
+    public long getNonCompressees() {
+        return nonCompressees.sum();
+    }
+
+    public long getOctetsAvant() {
+        return octetsAvant.sum();
+    }
+
+    public long getOctetsApres() {
+        return octetsApres.sum();
+    }
+
+    /**
+     * Temps passé à compresser, écriture vers le conteneur exclue : il ne
+     * dépend pas du débit des clients.
+     */
+    public long getDureeNanos() {
+        return dureeNanos.sum();
+    }
+
+    /**
+     * Taille compressée / taille d'origine, sur l'ensemble des réponses compressées.
+     */
+    public double getRatio() {
+        long avant = octetsAvant.sum();
+        return avant == 0 ? 1.0 : (double) octetsApres.sum() / avant;
+    }
+}
@@ -0,0 +1,39 @@
+package com.consultation.mapper;
+
+import com.consultation.models.RendezVous;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Conversion d'un rendez-vous en réponse JSON simplifiée (sans références
+ * circulaires vers le médecin ou le patient).
+ */
+public final class RendezVousMapper {
+
+    private RendezVousMapper() {
+    }
+
+    /**
+     * Corps de la réponse 201 de POST /rendezvous.
+     */
+    public static Map<String, Object> reponseCreation(RendezVous rdv) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("id", rdv.getId());
+        response.put("motif", rdv.getMotif());
+        response.put("statutRdv", rdv.getStatutRdv().name());
+        response.put("dateCreation", rdv.getDateCreation() != null ? rdv.getDateCreation().toString() : null);
+        if (rdv.getCreneau() != null) {
+            Map<String, Object> creneauInfo = new HashMap<>();
+            creneauInfo.put("id", rdv.getCreneau().getId());
+            creneauInfo.put("date",
+                    rdv.getCreneau().getDateDay() != null ? rdv.getCreneau().getDateDay().toString() : null);
+            creneauInfo.put("heureDebut",
+                    rdv.getCreneau().getHeureDebut() != null ? rdv.getCreneau().getHeureDebut().toString() : null);
+            creneauInfo.put("heureFin",
+                    rdv.getCreneau().getHeureFin() != null ? rdv.getCreneau().getHeureFin().toString() : null);
+            response.put("creneau", creneauInfo);
+        }
+        response.put("message", "Rendez-vous créé avec succès");
+        return response;
+    }
+}
@@ -0,0 +1,22 @@
+package com.consultation.metrics;
+
+import jakarta.enterprise.util.Nonbinding;
+import jakarta.interceptor.InterceptorBinding;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Mesure la durée d'une méthode de service (ChronometreInterceptor). La
+ * mesure est publiée sur /api/metrics sous le nom donné, ou sous
+ * Classe.methode par défaut.
+ */
+@InterceptorBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.METHOD, ElementType.TYPE })
+public @interface Chronometre {
+
+    @Nonbinding
+    String value() default "";
+}
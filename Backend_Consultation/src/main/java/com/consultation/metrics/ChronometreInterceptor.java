@@ -0,0 +1,52 @@
+package com.consultation.metrics;
+
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chronométrage des méthodes annotées @Chronometre. Placé avant
+ * l'intercepteur @Transactional : la durée inclut le commit. Une méthode qui
+ * lève une exception est comptée en échec.
+ */
+@Chronometre
+@Interceptor
+@Priority(Interceptor.Priority.PLATFORM_BEFORE + 100)
+public class ChronometreInterceptor {
+
+    @Inject
+    private RegistreMetriques registre;
+
+    private final Map<Method, RegistreMetriques.Operation> operations = new ConcurrentHashMap<>();
+
+    @AroundInvoke
+    public Object mesurer(InvocationContext contexte) throws Exception {
+        Method methode = contexte.getMethod();
+        RegistreMetriques.Operation operation = operations.get(methode);
+        if (operation == null) {
+            operation = operations.computeIfAbsent(methode, m -> registre.operation(nom(m)));
+        }
+        long debut = System.nanoTime();
+        boolean succes = false;
+        try {
+            Object resultat = contexte.proceed();
+            succes = true;
+            return resultat;
+        } finally {
+            operation.enregistrer(System.nanoTime() - debut, succes);
+        }
+    }
+
+    private static String nom(Method methode) {
+        Chronometre annotation = methode.getAnnotation(Chronometre.class);
+        if (annotation != null && !annotation.value().isEmpty()) {
+            return annotation.value();
+        }
+        return methode.getDeclaringClass().getSimpleName() + "." + methode.getName();
+    }
+}
@@ -0,0 +1,138 @@
+package com.consultation.metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.hibernate.engine.jdbc.connections.internal.DatasourceConnectionProviderImpl;
+
+/**
+ * Fournisseur de connexions Hibernate qui enveloppe les connexions de la
+ * source de données : le temps passé dans execute* et le nombre de lignes
+ * lues (ResultSet.next) sont reportés dans ProfilSql.
+ *
+ * Déclaré dans persistence.xml (hibernate.connection.provider_class) ; la
+ * source de données reste celle de jta-data-source. Seules les connexions
+ * obtenues par Hibernate sont mesurées : les accès JDBC directs sur
+ * jdbc/consultationDb (génération des créneaux, import des patients, export
+ * des rendez-vous) ne le sont pas.
+ *
+ * L'enveloppe coûte un appel réflexif par méthode JDBC, y compris chaque
+ * ResultSet.next() et getXxx() : elle n'est active que si
+ * consultation.sql.profilage.jdbc vaut true (désactivée par défaut). Sans
+ * elle, ProfilSql compte toujours les instructions par requête (InspecteurSql),
+ * mais pas le temps JDBC ni les lignes lues.
+ */
+public class ConnexionsProfilees extends DatasourceConnectionProviderImpl {
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection connexion = super.getConnection();
+        return ProfilSql.JDBC ? envelopper(Connection.class, new SurConnexion(connexion)) : connexion;
+    }
+
+    @Override
+    public void closeConnection(Connection connexion) throws SQLException {
+        if (Proxy.isProxyClass(connexion.getClass())
+                && Proxy.getInvocationHandler(connexion) instanceof SurConnexion sur) {
+            connexion = sur.cible;
+        }
+        super.closeConnection(connexion);
+    }
+
+    private static <T> T envelopper(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(ConnexionsProfilees.class.getClassLoader(),
+                new Class<?>[] { type }, handler));
+    }
+
+    /**
+     * Délègue l'appel à l'objet enveloppé ; equals et hashCode restent ceux du
+     * proxy pour qu'Hibernate retrouve la connexion qu'il a reçue.
+     */
+    private static Object appeler(Object proxy, Object cible, Method methode, Object[] args) throws Throwable {
+        if (methode.getName().equals("equals") && methode.getParameterCount() == 1) {
+            return proxy == args[0];
+        }
+        if (methode.getName().equals("hashCode") && methode.getParameterCount() == 0) {
+            return System.identityHashCode(proxy);
+        }
+        try {
+            return methode.invoke(cible, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static final class SurConnexion implements InvocationHandler {
+        private final Connection cible;
+
+        SurConnexion(Connection cible) {
+            this.cible = cible;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method methode, Object[] args) throws Throwable {
+            Object resultat = appeler(proxy, cible, methode, args);
+            if (resultat instanceof CallableStatement) {
+                return envelopper(CallableStatement.class, new SurInstruction((Statement) resultat));
+            }
+            if (resultat instanceof PreparedStatement) {
+                return envelopper(PreparedStatement.class, new SurInstruction((Statement) resultat));
+            }
+            if (resultat instanceof Statement) {
+                return envelopper(Statement.class, new SurInstruction((Statement) resultat));
+            }
+            return resultat;
+        }
+    }
+
+    private static final class SurInstruction implements InvocationHandler {
+        private final Statement cible;
+
+        SurInstruction(Statement cible) {
+            this.cible = cible;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method methode, Object[] args) throws Throwable {
+            Object resultat;
+            if (methode.getName().startsWith("execute")) {
+                long debut = System.nanoTime();
+                try {
+                    resultat = appeler(proxy, cible, methode, args);
+                } finally {
+                    ProfilSql.execution(System.nanoTime() - debut);
+                }
+            } else {
+                resultat = appeler(proxy, cible, methode, args);
+            }
+            if (resultat instanceof ResultSet) {
+                return envelopper(ResultSet.class, new SurResultat((ResultSet) resultat));
+            }
+            return resultat;
+        }
+    }
+
+    private static final class SurResultat implements InvocationHandler {
+        private final ResultSet cible;
+
+        SurResultat(ResultSet cible) {
+            this.cible = cible;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method methode, Object[] args) throws Throwable {
+            Object resultat = appeler(proxy, cible, methode, args);
+            if (Boolean.TRUE.equals(resultat) && methode.getName().equals("next")) {
+                ProfilSql.ligne();
+            }
+            return resultat;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.consultation.metrics;
+
+import com.consultation.cache.CacheSecondNiveau;
+import com.consultation.filters.StatistiquesCompression;
+import com.consultation.security.JWTUtil;
+import com.consultation.security.MotDePasseService;
+import com.consultation.services.AdmissionReservations;
+import com.consultation.services.IdempotenceService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rendu des métriques au format texte Prometheus (version 0.0.4).
+ *
+ * Les durées sont publiées en secondes sous forme de summary (quantiles 0.5,
+ * 0.99 et 0.999 depuis le démarrage). Les compteurs déjà tenus par les caches,
+ * l'admission des réservations, le pool BCrypt et la compression sont repris
+ * ici, en plus de leurs endpoints /admin.
+ */
+@ApplicationScoped
+public class ExpositionPrometheus {
+
+    private static final double[] QUANTILES = { 0.5, 0.99, 0.999 };
+
+    @Inject
+    private RegistreMetriques registre;
+
+    @Inject
+    private JWTUtil jwtUtil;
+
+    @Inject
+    private IdempotenceService idempotenceService;
+
+    @Inject
+    private CacheSecondNiveau cacheSecondNiveau;
+
+    @Inject
+    private AdmissionReservations admissionReservations;
+
+    @Inject
+    private MotDePasseService motDePasseService;
+
+    @Inject
+    private StatistiquesCompression statistiquesCompression;
+
+    public String ecrire() {
+        StringBuilder sortie = new StringBuilder(8192);
+        ecrireEndpoints(sortie);
+        ecrireOperations(sortie);
+        ecrireComposants(sortie);
+        return sortie.toString();
+    }
+
+    private void ecrireEndpoints(StringBuilder sortie) {
+        Map<String, RegistreMetriques.Endpoint> endpoints = new TreeMap<>(registre.getEndpoints());
+
+        entete(sortie, "http_server_requests_seconds", "summary", "Durée des requêtes HTTP par endpoint");
+        for (Map.Entry<String, RegistreMetriques.Endpoint> entree : endpoints.entrySet()) {
+            resume(sortie, "http_server_requests_seconds", "endpoint", entree.getKey(),
+                    entree.getValue().getDurees().instantane());
+        }
+
+        entete(sortie, "http_server_responses_total", "counter", "Réponses HTTP par endpoint et code de statut");
+        for (Map.Entry<String, RegistreMetriques.Endpoint> entree : endpoints.entrySet()) {
+            for (Map.Entry<Integer, LongAdder> statut : new TreeMap<>(entree.getValue().getStatuts()).entrySet()) {
+                sortie.append("http_server_responses_total{endpoint=\"").append(echapper(entree.getKey()))
+                        .append("\",status=\"").append(statut.getKey()).append("\"} ")
+                        .append(statut.getValue().sum()).append('\n');
+            }
+        }
+
+        entete(sortie, "http_server_requests_in_flight", "gauge", "Requêtes HTTP en cours par endpoint");
+        for (Map.Entry<String, RegistreMetriques.Endpoint> entree : endpoints.entrySet()) {
+            valeur(sortie, "http_server_requests_in_flight", "endpoint", entree.getKey(),
+                    entree.getValue().getEnCours());
+        }
+    }
+
+    private void ecrireOperations(StringBuilder sortie) {
+        Map<String, RegistreMetriques.Operation> operations = new TreeMap<>(registre.getOperations());
+
+        entete(sortie, "consultation_operation_seconds", "summary", "Durée des méthodes de service chronométrées");
+        for (Map.Entry<String, RegistreMetriques.Operation> entree : operations.entrySet()) {
+            resume(sortie, "consultation_operation_seconds", "operation", entree.getKey(),
+                    entree.getValue().getDurees().instantane());
+        }
+
+        entete(sortie, "consultation_operation_echecs_total", "counter",
+                "Appels de méthodes de service terminés par une exception");
+        for (Map.Entry<String, RegistreMetriques.Operation> entree : operations.entrySet()) {
+            valeur(sortie, "consultation_operation_echecs_total", "operation", entree.getKey(),
+                    entree.getValue().getEchecs());
+        }
+    }
+
+    private void ecrireComposants(StringBuilder sortie) {
+        entete(sortie, "consultation_cache_hits_total", "counter", "Succès des caches applicatifs");
+        valeur(sortie, "consultation_cache_hits_total", "cache", "jwt", jwtUtil.getCacheHits());
+        valeur(sortie, "consultation_cache_hits_total", "cache", "idempotence", idempotenceService.getHits());
+        entete(sortie, "consultation_cache_misses_total", "counter", "Échecs des caches applicatifs");
+        valeur(sortie, "consultation_cache_misses_total", "cache", "jwt", jwtUtil.getCacheMisses());
+        valeur(sortie, "consultation_cache_misses_total", "cache", "idempotence", idempotenceService.getMisses());
+
+        Map<String, Object> regions = cacheSecondNiveau.statistiques();
+        entete(sortie, "hibernate_cache_hits_total", "counter", "Succès du cache de second niveau par région");
+        for (Map.Entry<String, Object> region : regions.entrySet()) {
+            Object hits = ((Map<?, ?>) region.getValue()).get("hits");
+            if (hits != null) {
+                valeur(sortie, "hibernate_cache_hits_total", "region", region.getKey(), ((Number) hits).longValue());
+            }
+        }
+        entete(sortie, "hibernate_cache_misses_total", "counter", "Échecs du cache de second niveau par région");
+        for (Map.Entry<String, Object> region : regions.entrySet()) {
+            Object misses = ((Map<?, ?>) region.getValue()).get("misses");
+            if (misses != null) {
+                valeur(sortie, "hibernate_cache_misses_total", "region", region.getKey(),
+                        ((Number) misses).longValue());
+            }
+        }
+
+        compteur(sortie, "consultation_reservations_admises_total", "Réservations admises",
+                admissionReservations.getAdmises());
+        compteur(sortie, "consultation_reservations_refusees_total",
+                "Réservations refusées par l'admission par créneau", admissionReservations.getRefusees());
+        jauge(sortie, "consultation_reservations_en_cours", "Réservations en cours de traitement",
+                admissionReservations.getEnCours());
+
+        jauge(sortie, "consultation_bcrypt_threads_actifs", "Threads du pool BCrypt occupés",
+                motDePasseService.getThreadsActifs());
+        jauge(sortie, "consultation_bcrypt_file", "Hachages en attente dans le pool BCrypt",
+                motDePasseService.getTailleFile());
+        compteur(sortie, "consultation_bcrypt_rejets_total", "Hachages refusés, file pleine",
+                motDePasseService.getRejets());
+        compteur(sortie, "consultation_bcrypt_operations_total", "Hachages et vérifications BCrypt",
+                motDePasseService.getOperations());
+
+        compteur(sortie, "consultation_compression_reponses_total", "Réponses compressées",
+                statistiquesCompression.getCompressees());
+        compteur(sortie, "consultation_compression_octets_avant_total", "Octets avant compression",
+                statistiquesCompression.getOctetsAvant());
+        compteur(sortie, "consultation_compression_octets_apres_total", "Octets après compression",
+                statistiquesCompression.getOctetsApres());
+        entete(sortie, "consultation_compression_seconds_total", "counter", "Temps passé à compresser");
+        sortie.append("consultation_compression_seconds_total ")
+                .append(statistiquesCompression.getDureeNanos() / 1_000_000_000.0).append('\n');
+    }
+
+    private static void entete(StringBuilder sortie, String nom, String type, String aide) {
+        sortie.append("# HELP ").append(nom).append(' ').append(aide).append('\n');
+        sortie.append("# TYPE ").append(nom).append(' ').append(type).append('\n');
+    }
+
+    private static void resume(StringBuilder sortie, String nom, String etiquette, String valeurEtiquette,
+            Histogramme.Instantane instantane) {
+        String etiquettes = etiquette + "=\"" + echapper(valeurEtiquette) + "\"";
+        for (double q : QUANTILES) {
+            sortie.append(nom).append('{').append(etiquettes).append(",quantile=\"").append(q).append("\"} ")
+                    .append(secondes(instantane.quantile(q))).append('\n');
+        }
+        sortie.append(nom).append("_sum{").append(etiquettes).append("} ")
+                .append(secondes(instantane.somme())).append('\n');
+        sortie.append(nom).append("_count{").append(etiquettes).append("} ")
+                .append(instantane.nombre()).append('\n');
+    }
+
+    private static void valeur(StringBuilder sortie, String nom, String etiquette, String valeurEtiquette,
+            long valeur) {
+        sortie.append(nom).append('{').append(etiquette).append("=\"").append(echapper(valeurEtiquette))
+                .append("\"} ").append(valeur).append('\n');
+    }
+
+    private static void compteur(StringBuilder sortie, String nom, String aide, long valeur) {
+        entete(sortie, nom, "counter", aide);
+        sortie.append(nom).append(' ').append(valeur).append('\n');
+    }
+
+    private static void jauge(StringBuilder sortie, String nom, String aide, long valeur) {
+        entete(sortie, nom, "gauge", aide);
+        sortie.append(nom).append(' ').append(valeur).append('\n');
+    }
+
+    private static double secondes(long micros) {
+        return micros / 1_000_000.0;
+    }
+
+    private static String echapper(String valeur) {
+        return valeur.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,136 @@
+package com.consultation.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogramme de durées à seaux log-linéaires, dans l'esprit d'HdrHistogram.
+ *
+ * Les valeurs (en microsecondes) sous 32 ont chacune leur seau ; au-delà,
+ * chaque puissance de deux est découpée en 16 seaux, soit une erreur relative
+ * d'au plus 6,25 % sur les quantiles. L'enregistrement est un incrément
+ * atomique sur un tableau de taille fixe : aucun verrou, aucune allocation.
+ * Les valeurs s'accumulent depuis le démarrage (pas de fenêtre glissante).
+ */
+public final class Histogramme {
+
+    private static final int LINEAIRES = 32;
+    private static final int SOUS_SEAUX_BITS = 4;
+    private static final int SOUS_SEAUX = 1 << SOUS_SEAUX_BITS;
+    /**
+     * Exposant maximal (2^37 µs, environ 38 heures) ; au-delà la valeur va dans
+     * le dernier seau.
+     */
+    private static final int EXPOSANT_MAX = 37;
+    private static final int EXPOSANT_MIN = 5;
+    private static final int TAILLE = LINEAIRES + (EXPOSANT_MAX - EXPOSANT_MIN + 1) * SOUS_SEAUX;
+
+    private final AtomicLongArray seaux = new AtomicLongArray(TAILLE);
+    private final LongAdder nombre = new LongAdder();
+    private final LongAdder somme = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Enregistre une durée en nanosecondes.
+     */
+    public void enregistrerNanos(long nanos) {
+        enregistrer(Math.max(0, nanos / 1000));
+    }
+
+    /**
+     * Enregistre une valeur en microsecondes.
+     */
+    public void enregistrer(long micros) {
+        seaux.incrementAndGet(indice(micros));
+        nombre.increment();
+        somme.add(micros);
+        max.accumulate(micros);
+    }
+
+    static int indice(long valeur) {
+        if (valeur < LINEAIRES) {
+            return (int) valeur;
+        }
+        int exposant = 63 - Long.numberOfLeadingZeros(valeur);
+        if (exposant > EXPOSANT_MAX) {
+            return TAILLE - 1;
+        }
+        int sousSeau = (int) (valeur >>> (exposant - SOUS_SEAUX_BITS)) & (SOUS_SEAUX - 1);
+        return LINEAIRES + (exposant - EXPOSANT_MIN) * SOUS_SEAUX + sousSeau;
+    }
+
+    /**
+     * Plus grande valeur rangée dans un seau.
+     */
+    static long borneHaute(int indice) {
+        if (indice < LINEAIRES) {
+            return indice;
+        }
+        int exposant = EXPOSANT_MIN + (indice - LINEAIRES) / SOUS_SEAUX;
+        long sousSeau = (indice - LINEAIRES) % SOUS_SEAUX;
+        long largeur = 1L << (exposant - SOUS_SEAUX_BITS);
+        return (1L << exposant) + (sousSeau + 1) * largeur - 1;
+    }
+
+    /**
+     * Copie cohérente à un seau près, pour le calcul des quantiles.
+     */
+    public Instantane instantane() {
+        long[] copie = new long[TAILLE];
+        long total = 0;
+        for (int i = 0; i < TAILLE; i++) {
+            copie[i] = seaux.get(i);
+            total += copie[i];
+        }
+        return new Instantane(copie, total, somme.sum(), max.get());
+    }
+
+    /**
+     * État figé d'un histogramme. Les valeurs sont en microsecondes.
+     */
+    public static final class Instantane {
+        private final long[] seaux;
+        private final long nombre;
+        private final long somme;
+        private final long max;
+
+        private Instantane(long[] seaux, long nombre, long somme, long max) {
+            this.seaux = seaux;
+            this.nombre = nombre;
+            this.somme = somme;
+            this.max = max;
+        }
+
+        public long nombre() {
+            return nombre;
+        }
+
+        public long somme() {
+            return somme;
+        }
+
+        public long max() {
+            return max;
+        }
+
+        /**
+         * Valeur sous laquelle se trouvent q (0..1) des enregistrements.
+         */
+        public long quantile(double q) {
+            if (nombre == 0) {
+                return 0;
+            }
+            long rang = Math.max(1, (long) Math.ceil(q * nombre));
+            long cumul = 0;
+            for (int i = 0; i < seaux.length; i++) {
+                cumul += seaux[i];
+                if (cumul >= rang) {
+                    // Le dernier seau n'a pas de borne : seul le maximum est connu
+                    return i == seaux.length - 1 ? max : Math.min(borneHaute(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.consultation.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Compte chaque instruction SQL préparée par Hibernate dans ProfilSql.
+ * Déclaré dans persistence.xml (hibernate.session_factory.statement_inspector).
+ */
+public class InspecteurSql implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        if (ProfilSql.ACTIF) {
+            ProfilSql.instruction(sql);
+        }
+        return sql;
+    }
+}
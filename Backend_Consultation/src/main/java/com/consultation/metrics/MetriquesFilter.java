@@ -0,0 +1,130 @@
+package com.consultation.metrics;
+
+import com.consultation.metrics.jfr.RequeteHttpEvent;
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mesure chaque requête JAX-RS : durée, code de statut et requêtes en cours,
+ * par endpoint. L'endpoint est nommé d'après la méthode de ressource
+ * ("GET /rendezvous/patient/{id}") et non d'après l'URL, pour garder un
+ * nombre de séries borné.
+ *
+ * Le filtre passe avant l'authentification : les réponses 401/403 sont
+ * comptées aussi. Il ouvre et ferme aussi le contexte de ProfilSql, qui
+ * attribue les instructions SQL à l'endpoint (gardé dans les propriétés de la
+ * requête, qui peut se terminer sur un autre thread), et émet l'événement JFR
+ * RequeteHttpEvent. La durée s'arrête au début de l'écriture du corps ; les
+ * exports en flux ne sont donc mesurés que jusqu'à leur premier octet.
+ */
+@Provider
+@Priority(100)
+public class MetriquesFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    private static final String DEBUT = MetriquesFilter.class.getName() + ".debut";
+
+    private static final String EVENEMENT = MetriquesFilter.class.getName() + ".evenement";
+
+    private static final String PROFIL_SQL = MetriquesFilter.class.getName() + ".profilSql";
+
+    /**
+     * Endpoint des requêtes qui n'ont trouvé aucune ressource (404, 405...).
+     */
+    private static final String NON_ROUTE = "non-route";
+
+    private static final Map<Method, String> NOMS = new ConcurrentHashMap<>();
+
+    @Inject
+    private RegistreMetriques registre;
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) throws IOException {
+        String nom = nom(requestContext);
+        registre.endpoint(nom).debut();
+        ProfilSql.Requete profil = ProfilSql.debut(nom);
+        if (profil != null) {
+            requestContext.setProperty(PROFIL_SQL, profil);
+        }
+        RequeteHttpEvent evenement = new RequeteHttpEvent();
+        if (evenement.isEnabled()) {
+            evenement.begin();
+            requestContext.setProperty(EVENEMENT, evenement);
+        }
+        requestContext.setProperty(DEBUT, System.nanoTime());
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext)
+            throws IOException {
+        int instructionsSql = ProfilSql.fin((ProfilSql.Requete) requestContext.getProperty(PROFIL_SQL));
+        Object debut = requestContext.getProperty(DEBUT);
+        if (debut == null) {
+            registre.endpoint(NON_ROUTE).compterStatut(responseContext.getStatus());
+            return;
+        }
+        String nom = nom(requestContext);
+        registre.endpoint(nom).fin(System.nanoTime() - (Long) debut, responseContext.getStatus());
+
+        if (requestContext.getProperty(EVENEMENT) instanceof RequeteHttpEvent evenement) {
+            evenement.end();
+            if (evenement.shouldCommit()) {
+                evenement.endpoint = nom;
+                evenement.uri = requestContext.getUriInfo().getPath();
+                evenement.statut = responseContext.getStatus();
+                evenement.instructionsSql = instructionsSql;
+                evenement.commit();
+            }
+        }
+    }
+
+    private String nom(ContainerRequestContext requestContext) {
+        Method methode = resourceInfo.getResourceMethod();
+        if (methode == null) {
+            return requestContext.getMethod() + " " + NON_ROUTE;
+        }
+        String nom = NOMS.get(methode);
+        return nom != null ? nom : NOMS.computeIfAbsent(methode, m -> construireNom(requestContext, m));
+    }
+
+    private String construireNom(ContainerRequestContext requestContext, Method methode) {
+        String verbe = requestContext.getMethod();
+        for (Annotation annotation : methode.getAnnotations()) {
+            HttpMethod http = annotation.annotationType().getAnnotation(HttpMethod.class);
+            if (http != null) {
+                verbe = http.value();
+            }
+        }
+        StringBuilder chemin = new StringBuilder();
+        ajouter(chemin, resourceInfo.getResourceClass().getAnnotation(Path.class));
+        ajouter(chemin, methode.getAnnotation(Path.class));
+        return verbe + " " + (chemin.length() == 0 ? "/" : chemin);
+    }
+
+    private static void ajouter(StringBuilder chemin, Path path) {
+        if (path == null) {
+            return;
+        }
+        String valeur = path.value();
+        if (!valeur.startsWith("/")) {
+            chemin.append('/');
+        }
+        chemin.append(valeur.endsWith("/") ? valeur.substring(0, valeur.length() - 1) : valeur);
+    }
+}
@@ -0,0 +1,340 @@
+package com.consultation.metrics;
+
+import com.consultation.config.Parametres;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Profil des instructions SQL par endpoint JAX-RS : nombre d'instructions par
+ * requête HTTP et, si consultation.sql.profilage.jdbc est activé, lignes lues
+ * et temps passé dans le pilote JDBC.
+ *
+ * MetriquesFilter ouvre le contexte d'une requête HTTP (Requete), le garde dans
+ * une propriété de la requête et le ferme à la réponse. Le contexte est aussi
+ * installé sur le thread qui exécute la requête, où InspecteurSql et
+ * ConnexionsProfilees y ajoutent chaque instruction. Ces deux classes sont
+ * instanciées par Hibernate et non par CDI, d'où un état statique. Une requête
+ * suspendue qui se poursuit sur un autre pool y transporte son contexte
+ * (attacher, restaurer et detacher ; voir MotDePasseService.executer).
+ *
+ * Les totaux sont tenus par fenêtres de consultation.sql.fenetre.minutes
+ * (5 par défaut) : le rapport couvre la fenêtre en cours et la précédente.
+ * Une requête qui dépasse consultation.sql.budget instructions (20 par défaut)
+ * est comptée comme N+1 probable, avec l'instruction la plus répétée.
+ */
+public final class ProfilSql {
+
+    private static final Logger LOGGER = Logger.getLogger(ProfilSql.class.getName());
+
+    /**
+     * Profilage actif (consultation.sql.profilage, true par défaut). Désactivé,
+     * les connexions ne sont plus enveloppées et rien n'est compté.
+     */
+    public static final boolean ACTIF = Parametres.booleen("consultation.sql.profilage", true);
+
+    /**
+     * Mesure du temps JDBC et des lignes lues par ConnexionsProfilees
+     * (consultation.sql.profilage.jdbc, false par défaut : l'enveloppe des
+     * connexions a un coût sur chaque lecture de ligne).
+     */
+    public static final boolean JDBC = ACTIF && Parametres.booleen("consultation.sql.profilage.jdbc", false);
+
+    /**
+     * Nombre d'instructions SQL au-delà duquel une requête HTTP est suspecte.
+     */
+    public static final int BUDGET = Parametres.entier("consultation.sql.budget", 20);
+
+    private static final long DUREE_FENETRE_MS = Parametres.entierLong("consultation.sql.fenetre.minutes", 5)
+            * 60_000L;
+
+    /**
+     * Endpoint des instructions exécutées hors d'une requête HTTP (tâches
+     * planifiées, démarrage, flux écrits après les filtres de réponse).
+     */
+    public static final String HORS_REQUETE = "hors-requete";
+
+    private static final ThreadLocal<Requete> COURANTE = new ThreadLocal<>();
+
+    private static final AtomicReference<Fenetre> FENETRE = new AtomicReference<>(
+            new Fenetre(System.currentTimeMillis(), null));
+
+    private ProfilSql() {
+    }
+
+    /**
+     * Instructions d'une requête HTTP en cours. N'est modifiée que par le thread
+     * qui exécute la requête à un instant donné ; le passage d'un thread à
+     * l'autre se fait par un pool, qui assure la visibilité des compteurs.
+     */
+    public static final class Requete {
+        private final String endpoint;
+        private int instructions;
+        private long lignes;
+        private long nanos;
+        private final Map<String, Integer> repetitions = new HashMap<>();
+
+        private Requete(String endpoint) {
+            this.endpoint = endpoint;
+        }
+    }
+
+    /**
+     * Totaux d'un endpoint sur une fenêtre.
+     */
+    private static final class Totaux {
+        private final LongAdder requetes = new LongAdder();
+        private final LongAdder instructions = new LongAdder();
+        private final LongAdder lignes = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAccumulator maxParRequete = new LongAccumulator(Math::max, 0);
+        private final LongAdder suspicionsN1 = new LongAdder();
+        private volatile String exempleN1;
+    }
+
+    private static final class Fenetre {
+        private final long debut;
+        private final Fenetre precedente;
+        private final Map<String, Totaux> endpoints = new ConcurrentHashMap<>();
+
+        Fenetre(long debut, Fenetre precedente) {
+            this.debut = debut;
+            this.precedente = precedente;
+        }
+
+        Totaux totaux(String endpoint) {
+            Totaux totaux = endpoints.get(endpoint);
+            return totaux != null ? totaux : endpoints.computeIfAbsent(endpoint, e -> new Totaux());
+        }
+    }
+
+    /**
+     * Fenêtre en cours ; la remplace si elle a expiré (sans verrou : un seul
+     * thread gagne le compareAndSet).
+     */
+    private static Fenetre fenetre() {
+        Fenetre fenetre = FENETRE.get();
+        long maintenant = System.currentTimeMillis();
+        if (maintenant - fenetre.debut >= DUREE_FENETRE_MS) {
+            // La précédente ne garde pas sa propre précédente
+            Fenetre precedente = new Fenetre(fenetre.debut, null);
+            precedente.endpoints.putAll(fenetre.endpoints);
+            Fenetre nouvelle = new Fenetre(maintenant, precedente);
+            FENETRE.compareAndSet(fenetre, nouvelle);
+            fenetre = FENETRE.get();
+        }
+        return fenetre;
+    }
+
+    /**
+     * Ouvre le contexte d'une requête HTTP et l'installe sur le thread courant.
+     *
+     * @return le contexte, null si le profilage est désactivé
+     */
+    static Requete debut(String endpoint) {
+        if (!ACTIF) {
+            return null;
+        }
+        Requete requete = new Requete(endpoint);
+        COURANTE.set(requete);
+        return requete;
+    }
+
+    /**
+     * Ferme le contexte, le retire du thread courant s'il y est encore, et
+     * reporte ses totaux sur l'endpoint.
+     *
+     * @return le nombre d'instructions SQL de la requête, 0 sans contexte
+     */
+    static int fin(Requete requete) {
+        if (COURANTE.get() == requete) {
+            COURANTE.remove();
+        }
+        if (requete == null) {
+            return 0;
+        }
+        Totaux totaux = fenetre().totaux(requete.endpoint);
+        totaux.requetes.increment();
+        totaux.instructions.add(requete.instructions);
+        totaux.lignes.add(requete.lignes);
+        totaux.nanos.add(requete.nanos);
+        totaux.maxParRequete.accumulate(requete.instructions);
+        if (requete.instructions > BUDGET) {
+            signalerN1(requete, totaux);
+        }
+        return requete.instructions;
+    }
+
+    private static void signalerN1(Requete requete, Totaux totaux) {
+        Map.Entry<String, Integer> plusRepetee = requete.repetitions.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .orElse(null);
+        String exemple = plusRepetee != null ? plusRepetee.getValue() + " x " + plusRepetee.getKey() : null;
+        totaux.exempleN1 = exemple;
+        totaux.suspicionsN1.increment();
+        // Un avertissement par endpoint et par fenêtre
+        if (totaux.suspicionsN1.sum() == 1) {
+            LOGGER.warning(() -> "N+1 probable sur " + requete.endpoint + " : " + requete.instructions
+                    + " instructions SQL pour une requête (budget " + BUDGET + "), la plus répétée : " + exemple);
+        }
+    }
+
+    /**
+     * Contexte installé sur le thread courant, null hors requête HTTP.
+     */
+    public static Requete courante() {
+        return COURANTE.get();
+    }
+
+    /**
+     * Installe un contexte sur le thread courant (thread d'un pool qui
+     * poursuit la requête).
+     *
+     * @return le contexte précédent, à rendre à restaurer()
+     */
+    public static Requete attacher(Requete requete) {
+        Requete precedente = COURANTE.get();
+        if (requete != null) {
+            COURANTE.set(requete);
+        }
+        return precedente;
+    }
+
+    /**
+     * Remet le contexte qu'avait le thread avant attacher().
+     */
+    public static void restaurer(Requete precedente) {
+        if (precedente != null) {
+            COURANTE.set(precedente);
+        } else {
+            COURANTE.remove();
+        }
+    }
+
+    /**
+     * Retire le contexte du thread courant, quand la requête se poursuit sur
+     * un autre thread.
+     */
+    public static void detacher() {
+        COURANTE.remove();
+    }
+
+    /**
+     * Instruction préparée par Hibernate (InspecteurSql).
+     */
+    static void instruction(String sql) {
+        Requete requete = COURANTE.get();
+        if (requete == null) {
+            Totaux totaux = fenetre().totaux(HORS_REQUETE);
+            totaux.instructions.increment();
+            return;
+        }
+        requete.instructions++;
+        if (requete.repetitions.size() < 64 || requete.repetitions.containsKey(sql)) {
+            requete.repetitions.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Temps d'exécution d'une instruction dans le pilote (ConnexionsProfilees).
+     */
+    static void execution(long nanos) {
+        Requete requete = COURANTE.get();
+        if (requete != null) {
+            requete.nanos += nanos;
+        } else {
+            fenetre().totaux(HORS_REQUETE).nanos.add(nanos);
+        }
+    }
+
+    /**
+     * Ligne lue dans un ResultSet (ConnexionsProfilees).
+     */
+    static void ligne() {
+        Requete requete = COURANTE.get();
+        if (requete != null) {
+            requete.lignes++;
+        } else {
+            fenetre().totaux(HORS_REQUETE).lignes.increment();
+        }
+    }
+
+    /**
+     * Les n endpoints les plus coûteux sur la fenêtre en cours et la précédente.
+     *
+     * @param tri "jdbc" (temps JDBC total, défaut ; instructions par requête si
+     *            la mesure JDBC est désactivée), "instructions" (instructions
+     *            par requête) ou "n1" (suspicions de N+1)
+     */
+    public static Map<String, Object> top(int n, String tri) {
+        Fenetre fenetre = fenetre();
+        Map<String, long[]> cumuls = new HashMap<>();
+        Map<String, String> exemples = new HashMap<>();
+        for (Fenetre f = fenetre; f != null; f = f.precedente) {
+            for (Map.Entry<String, Totaux> entree : f.endpoints.entrySet()) {
+                Totaux t = entree.getValue();
+                long[] c = cumuls.computeIfAbsent(entree.getKey(), e -> new long[6]);
+                c[0] += t.requetes.sum();
+                c[1] += t.instructions.sum();
+                c[2] += t.lignes.sum();
+                c[3] += t.nanos.sum();
+                c[4] = Math.max(c[4], t.maxParRequete.get());
+                c[5] += t.suspicionsN1.sum();
+                if (t.exempleN1 != null) {
+                    exemples.putIfAbsent(entree.getKey(), t.exempleN1);
+                }
+            }
+        }
+
+        String critere = tri == null ? "jdbc" : tri;
+        if (critere.equals("jdbc") && !JDBC) {
+            critere = "instructions";
+        }
+        Comparator<Map.Entry<String, long[]>> ordre = switch (critere) {
+            case "instructions" -> Comparator.comparingDouble(e -> parRequete(e.getValue()[1], e.getValue()[0]));
+            case "n1" -> Comparator.comparingLong(e -> e.getValue()[5]);
+            default -> Comparator.comparingLong(e -> e.getValue()[3]);
+        };
+        List<Map.Entry<String, long[]>> tries = new ArrayList<>(cumuls.entrySet());
+        tries.sort(ordre.reversed());
+
+        List<Map<String, Object>> lignes = new ArrayList<>();
+        for (Map.Entry<String, long[]> entree : tries.subList(0, Math.min(n, tries.size()))) {
+            long[] c = entree.getValue();
+            Map<String, Object> ligne = new LinkedHashMap<>();
+            ligne.put("endpoint", entree.getKey());
+            ligne.put("requetes", c[0]);
+            ligne.put("instructions", c[1]);
+            ligne.put("instructionsParRequete", parRequete(c[1], c[0]));
+            ligne.put("maxParRequete", c[4]);
+            ligne.put("lignes", c[2]);
+            ligne.put("jdbcMs", c[3] / 1_000_000.0);
+            ligne.put("jdbcMsParRequete", parRequete(c[3], c[0]) / 1_000_000.0);
+            ligne.put("suspicionsN1", c[5]);
+            ligne.put("exempleN1", exemples.get(entree.getKey()));
+            lignes.add(ligne);
+        }
+
+        Map<String, Object> rapport = new LinkedHashMap<>();
+        rapport.put("depuis", Instant.ofEpochMilli(
+                fenetre.precedente != null ? fenetre.precedente.debut : fenetre.debut).toString());
+        rapport.put("budget", BUDGET);
+        rapport.put("actif", ACTIF);
+        rapport.put("jdbc", JDBC);
+        rapport.put("endpoints", lignes);
+        return rapport;
+    }
+
+    private static double parRequete(long total, long requetes) {
+        return requetes == 0 ? 0 : (double) total / requetes;
+    }
+}
@@ -0,0 +1,100 @@
+package com.consultation.metrics;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métriques applicatives : une entrée par endpoint JAX-RS (durées, codes de
+ * statut, requêtes en cours) et par méthode de service chronométrée.
+ *
+ * Les entrées sont créées au premier passage puis seulement lues ; les
+ * enregistrements ne prennent aucun verrou (LongAdder, Histogramme).
+ */
+@ApplicationScoped
+public class RegistreMetriques {
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+
+    /**
+     * Mesures d'un endpoint, identifié par "METHODE /chemin/{param}".
+     */
+    public static final class Endpoint {
+        private final Histogramme durees = new Histogramme();
+        private final LongAdder enCours = new LongAdder();
+        private final Map<Integer, LongAdder> statuts = new ConcurrentHashMap<>();
+
+        void debut() {
+            enCours.increment();
+        }
+
+        void fin(long nanos, int statut) {
+            enCours.decrement();
+            durees.enregistrerNanos(nanos);
+            compterStatut(statut);
+        }
+
+        void compterStatut(int statut) {
+            LongAdder compteur = statuts.get(statut);
+            if (compteur == null) {
+                compteur = statuts.computeIfAbsent(statut, s -> new LongAdder());
+            }
+            compteur.increment();
+        }
+
+        public Histogramme getDurees() {
+            return durees;
+        }
+
+        public long getEnCours() {
+            return enCours.sum();
+        }
+
+        public Map<Integer, LongAdder> getStatuts() {
+            return statuts;
+        }
+    }
+
+    /**
+     * Mesures d'une méthode de service : durées et nombre d'échecs.
+     */
+    public static final class Operation {
+        private final Histogramme durees = new Histogramme();
+        private final LongAdder echecs = new LongAdder();
+
+        void enregistrer(long nanos, boolean succes) {
+            durees.enregistrerNanos(nanos);
+            if (!succes) {
+                echecs.increment();
+            }
+        }
+
+        public Histogramme getDurees() {
+            return durees;
+        }
+
+        public long getEchecs() {
+            return echecs.sum();
+        }
+    }
+
+    public Endpoint endpoint(String nom) {
+        Endpoint endpoint = endpoints.get(nom);
+        return endpoint != null ? endpoint : endpoints.computeIfAbsent(nom, n -> new Endpoint());
+    }
+
+    public Operation operation(String nom) {
+        Operation operation = operations.get(nom);
+        return operation != null ? operation : operations.computeIfAbsent(nom, n -> new Operation());
+    }
+
+    public Map<String, Endpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    public Map<String, Operation> getOperations() {
+        return operations;
+    }
+}
@@ -0,0 +1,27 @@
+package com.consultation.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Verrouillage d'un créneau pendant une réservation : SELECT ... FOR UPDATE
+ * (pessimiste) ou UPDATE conditionnel (optimiste).
+ */
+@Name("consultation.AttenteVerrouReservation")
+@Label("Attente du verrou de réservation")
+@Category({ "Consultation", "Base de données" })
+@Description("Verrouillage de la ligne du créneau pendant une réservation")
+public class AttenteVerrouReservationEvent extends Event {
+
+    @Label("Créneau")
+    public long creneauId;
+
+    @Label("Mode")
+    public String mode;
+
+    @Label("Obtenu")
+    public boolean obtenu;
+}
@@ -0,0 +1,23 @@
+package com.consultation.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Hachage ou vérification BCrypt d'un mot de passe.
+ */
+@Name("consultation.BCrypt")
+@Label("BCrypt")
+@Category({ "Consultation", "Sécurité" })
+@Description("Hachage ou vérification BCrypt d'un mot de passe")
+public class BCryptEvent extends Event {
+
+    @Label("Opération")
+    public String operation;
+
+    @Label("Coût")
+    public int cout;
+}
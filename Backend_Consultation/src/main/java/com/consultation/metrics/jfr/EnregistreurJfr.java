@@ -0,0 +1,118 @@
+package com.consultation.metrics.jfr;
+
+import com.consultation.config.Parametres;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * Enregistrement JFR continu de l'application.
+ *
+ * Démarré avec l'application, il utilise la configuration "default" du JDK
+ * (surcoût de l'ordre de 1 %) et les événements consultation.* ; il garde
+ * les consultation.jfr.minutes dernières minutes (30 par défaut), dans la
+ * limite de consultation.jfr.taille.mo (250 Mo). Les requêtes, transactions
+ * et sérialisations JSON plus courtes que consultation.jfr.seuil.ms (20 ms)
+ * ne sont pas enregistrées. consultation.jfr.actif=false le désactive.
+ */
+@ApplicationScoped
+public class EnregistreurJfr {
+
+    private static final Logger LOGGER = Logger.getLogger(EnregistreurJfr.class.getName());
+
+    private static final String NOM = "consultation";
+
+    private static final boolean ACTIF = Parametres.booleen("consultation.jfr.actif", true);
+
+    private static final int MINUTES = Parametres.entier("consultation.jfr.minutes", 30);
+
+    private static final long TAILLE_MAX = Parametres.entierLong("consultation.jfr.taille.mo", 250) * 1024 * 1024;
+
+    private static final long SEUIL_MS = Parametres.entierLong("consultation.jfr.seuil.ms", 20);
+
+    private static final Path REPERTOIRE = Paths.get(Parametres.texte("consultation.jfr.repertoire",
+            Paths.get(System.getProperty("java.io.tmpdir"), "consultation-jfr").toString()));
+
+    private Recording enregistrement;
+
+    void demarrer(@Observes @Initialized(ApplicationScoped.class) Object evenement) {
+        if (!ACTIF) {
+            return;
+        }
+        try {
+            Recording recording = new Recording(Configuration.getConfiguration("default"));
+            recording.setName(NOM);
+            recording.setToDisk(true);
+            recording.setMaxAge(Duration.ofMinutes(MINUTES));
+            recording.setMaxSize(TAILLE_MAX);
+            Duration seuil = Duration.ofMillis(SEUIL_MS);
+            recording.enable(RequeteHttpEvent.class).withThreshold(seuil);
+            recording.enable(TransactionEvent.class).withThreshold(seuil);
+            recording.enable(SerialisationJsonEvent.class).withThreshold(seuil);
+            recording.enable(AttenteVerrouReservationEvent.class).withoutThreshold();
+            recording.enable(BCryptEvent.class).withoutThreshold();
+            recording.start();
+            enregistrement = recording;
+        } catch (IOException | ParseException | IllegalStateException | SecurityException e) {
+            LOGGER.log(Level.WARNING, "Enregistrement JFR continu non démarré", e);
+        }
+    }
+
+    @PreDestroy
+    void arreter() {
+        if (enregistrement != null) {
+            enregistrement.close();
+        }
+    }
+
+    public boolean isActif() {
+        return enregistrement != null;
+    }
+
+    public int getMinutesMax() {
+        return MINUTES;
+    }
+
+    /**
+     * Écrit les dernières minutes de l'enregistrement dans un fichier .jfr du
+     * répertoire consultation.jfr.repertoire.
+     *
+     * @return le fichier écrit
+     * @throws IllegalStateException si l'enregistrement n'est pas actif
+     */
+    public Path exporter(int minutes) throws IOException {
+        if (enregistrement == null) {
+            throw new IllegalStateException("Enregistrement JFR inactif");
+        }
+        Files.createDirectories(REPERTOIRE);
+        Path fichier = REPERTOIRE.resolve("consultation-"
+                + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".jfr");
+        // JFR.dump sait limiter l'export aux dernières minutes (maxage), l'API Recording non
+        try {
+            ManagementFactory.getPlatformMBeanServer().invoke(
+                    new ObjectName("com.sun.management:type=DiagnosticCommand"), "jfrDump",
+                    new Object[] { new String[] { "name=" + NOM, "maxage=" + minutes + "m",
+                            "filename=" + fichier.toAbsolutePath() } },
+                    new String[] { String[].class.getName() });
+        } catch (JMException e) {
+            throw new IOException("Export JFR impossible", e);
+        }
+        return fichier;
+    }
+}
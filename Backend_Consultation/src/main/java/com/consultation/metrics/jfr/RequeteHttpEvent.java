@@ -0,0 +1,29 @@
+package com.consultation.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Requête JAX-RS, de l'entrée dans les filtres jusqu'au filtre de réponse.
+ */
+@Name("consultation.RequeteHttp")
+@Label("Requête HTTP")
+@Category({ "Consultation", "HTTP" })
+@Description("Requête JAX-RS, des filtres d'entrée au filtre de réponse")
+public class RequeteHttpEvent extends Event {
+
+    @Label("Endpoint")
+    public String endpoint;
+
+    @Label("URI")
+    public String uri;
+
+    @Label("Statut")
+    public int statut;
+
+    @Label("Instructions SQL")
+    public int instructionsSql;
+}
@@ -0,0 +1,21 @@
+package com.consultation.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Écriture d'un corps de réponse JSON (sérialisation Jackson et écriture vers
+ * le client, compression comprise).
+ */
+@Name("consultation.SerialisationJson")
+@Label("Sérialisation JSON")
+@Category({ "Consultation", "HTTP" })
+@Description("Écriture d'un corps de réponse JSON, compression comprise")
+public class SerialisationJsonEvent extends Event {
+
+    @Label("Type")
+    public String type;
+}
@@ -0,0 +1,40 @@
+package com.consultation.metrics.jfr;
+
+import jakarta.annotation.Priority;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+import java.io.IOException;
+
+/**
+ * Émet un SerialisationJsonEvent autour de l'écriture des réponses JSON.
+ * Placé à l'intérieur de CompressionInterceptor : la durée comprend la
+ * compression et l'écriture vers le client.
+ */
+@Provider
+@Priority(Priorities.ENTITY_CODER + 100)
+public class SerialisationJsonInterceptor implements WriterInterceptor {
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+        MediaType type = context.getMediaType();
+        SerialisationJsonEvent event = new SerialisationJsonEvent();
+        if (!event.isEnabled() || type == null || !type.isCompatible(MediaType.APPLICATION_JSON_TYPE)) {
+            context.proceed();
+            return;
+        }
+        event.begin();
+        try {
+            context.proceed();
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.type = context.getType() != null ? context.getType().getName() : null;
+                event.commit();
+            }
+        }
+    }
+}
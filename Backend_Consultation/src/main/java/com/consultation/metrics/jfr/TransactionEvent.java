@@ -0,0 +1,26 @@
+package com.consultation.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Méthode @Transactional, commit ou rollback compris.
+ */
+@Name("consultation.Transaction")
+@Label("Transaction")
+@Category({ "Consultation", "Base de données" })
+@Description("Méthode @Transactional, commit ou rollback compris")
+public class TransactionEvent extends Event {
+
+    @Label("Méthode")
+    public String methode;
+
+    @Label("Succès")
+    public boolean succes;
+
+    @Label("Exception")
+    public String exception;
+}
@@ -0,0 +1,42 @@
+package com.consultation.metrics.jfr;
+
+import jakarta.annotation.Priority;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+import jakarta.transaction.Transactional;
+
+/**
+ * Émet un TransactionEvent pour chaque méthode @Transactional (type REQUIRED,
+ * celui de toutes les méthodes du projet). Placé juste avant l'intercepteur
+ * de transaction du conteneur, il mesure aussi le commit.
+ */
+@Transactional
+@Interceptor
+@Priority(Interceptor.Priority.PLATFORM_BEFORE + 150)
+public class TransactionJfrInterceptor {
+
+    @AroundInvoke
+    public Object mesurer(InvocationContext contexte) throws Exception {
+        TransactionEvent event = new TransactionEvent();
+        if (!event.isEnabled()) {
+            return contexte.proceed();
+        }
+        event.begin();
+        try {
+            Object resultat = contexte.proceed();
+            event.succes = true;
+            return resultat;
+        } catch (Exception e) {
+            event.exception = e.getClass().getName();
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.methode = contexte.getMethod().getDeclaringClass().getSimpleName() + "."
+                        + contexte.getMethod().getName();
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.consultation.models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Réponse enregistrée pour une clé Idempotency-Key (POST /rendezvous), quand
+ * le stockage en base est activé.
+ */
+@Entity
+@Table(name = "cle_idempotence")
+public class CleIdempotence {
+
+    @Id
+    @Column(length = 160)
+    private String cle;
+
+    /**
+     * Empreinte SHA-256 du contenu de la requête d'origine.
+     */
+    @Column(length = 64)
+    private String empreinte;
+
+    @Column(nullable = false)
+    private int statut;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String corps;
+
+    @Column(name = "date_expiration", nullable = false)
+    private LocalDateTime dateExpiration;
+
+    // --- CONSTRUCTEURS ---
+
+    public CleIdempotence() {
+    }
+
+    public CleIdempotence(String cle, String empreinte, int statut, String corps, LocalDateTime dateExpiration) {
+        this.cle = cle;
+        this.empreinte = empreinte;
+        this.statut = statut;
+        this.corps = corps;
+        this.dateExpiration = dateExpiration;
+    }
+
+    // --- GETTERS ET SETTERS ---
+
+    public String getCle() {
+        return cle;
+    }
+
+    public void setCle(String cle) {
+        this.cle = cle;
+    }
+
+    public String getEmpreinte() {
+        return empreinte;
+    }
+
+    public void setEmpreinte(String empreinte) {
+        this.empreinte = empreinte;
+    }
+
+    public int getStatut() {
+        return statut;
+    }
+
+    public void setStatut(int statut) {
+        this.statut = statut;
+    }
+
+    public String getCorps() {
+        return corps;
+    }
+
+    public void setCorps(String corps) {
+        this.corps = corps;
+    }
+
+    public LocalDateTime getDateExpiration() {
+        return dateExpiration;
+    }
+
+    public void setDateExpiration(LocalDateTime dateExpiration) {
+        this.dateExpiration = dateExpiration;
+    }
+}
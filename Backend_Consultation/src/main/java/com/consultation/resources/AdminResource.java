@@ -0,0 +1,317 @@
+package com.consultation.resources;
+
+import com.consultation.cache.CacheSecondNiveau;
+import com.consultation.filters.StatistiquesCompression;
+import com.consultation.metrics.ProfilSql;
+import com.consultation.metrics.jfr.EnregistreurJfr;
+import com.consultation.models.Role;
+import com.consultation.security.JWTUtil;
+import com.consultation.security.MotDePasseService;
+import com.consultation.services.AdmissionReservations;
+import com.consultation.services.ExportRendezVousService;
+import com.consultation.services.IdempotenceService;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+
+/**
+ * Endpoints d'exploitation réservés aux administrateurs (rôle ADMIN).
+ */
+@Path("/admin")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public class AdminResource {
+
+    @Context
+    private ContainerRequestContext requestContext;
+
+    @Inject
+    private JWTUtil jwtUtil;
+
+    @Inject
+    private MotDePasseService motDePasseService;
+
+    @Inject
+    private AdmissionReservations admissionReservations;
+
+    @Inject
+    private IdempotenceService idempotenceService;
+
+    @Inject
+    private CacheSecondNiveau cacheSecondNiveau;
+
+    @Inject
+    private StatistiquesCompression statistiquesCompression;
+
+    @Inject
+    private EnregistreurJfr enregistreurJfr;
+
+    @Inject
+    private ExportRendezVousService exportRendezVousService;
+
+    /**
+     * GET /admin/caches/jwt
+     * Statistiques du cache des tokens JWT vérifiés.
+     * Exemple de réponse : { "hits": 1520, "misses": 34, "taille": 30 }
+     */
+    @GET
+    @Path("/caches/jwt")
+    public Response getCacheJwt() {
+        if (!estAdmin()) {
+            return interdit();
+        }
+        return Response.ok(Map.of(
+                "hits", jwtUtil.getCacheHits(),
+                "misses", jwtUtil.getCacheMisses(),
+                "taille", jwtUtil.getCacheTaille())).build();
+    }
+
+    /**
+     * GET /admin/caches/idempotence
+     * Statistiques des réponses enregistrées pour les en-têtes Idempotency-Key.
+     * Exemple de réponse : { "hits": 12, "misses": 840, "taille": 840, "jdbc": false }
+     */
+    @GET
+    @Path("/caches/idempotence")
+    public Response getCacheIdempotence() {
+        if (!estAdmin()) {
+            return interdit();
+        }
+        return Response.ok(Map.of(
+                "hits", idempotenceService.getHits(),
+                "misses", idempotenceService.getMisses(),
+                "taille", idempotenceService.getTaille(),
+                "jdbc", idempotenceService.isJdbc())).build();
+    }
+
+    /**
+     * GET /admin/caches/hibernate
+     * Statistiques des régions du cache de second niveau Hibernate.
+     * Exemple de réponse :
+     * { "com.consultation.models.Service": { "hits": 900, "misses": 12, "puts": 12,
+     * "tauxSucces": 0.987, "elementsEnMemoire": 12 }, ... }
+     */
+    @GET
+    @Path("/caches/hibernate")
+    public Response getCacheHibernate() {
+        if (!estAdmin()) {
+            return interdit();
+        }
+        return Response.ok(cacheSecondNiveau.statistiques()).build();
+    }
+
+    /**
+     * GET /admin/pools/mots-de-passe
+     * État du pool de hachage BCrypt (connexion / inscription).
+     * Exemple de réponse :
+     * { "threads": 8, "actifs": 2, "file": 0, "capaciteFile": 256, "rejets": 0,
+     * "operations": 420, "latenceMoyenneMs": 71.5 }
+     */
+    @GET
+    @Path("/pools/mots-de-passe")
+    public Response getPoolMotsDePasse() {
+        if (!estAdmin()) {
+            return interdit();
+        }
+        long operations = motDePasseService.getOperations();
+        double latenceMoyenneMs = operations == 0 ? 0
+                : motDePasseService.getDureeTotaleNanos() / 1_000_000.0 / operations;
+        Map<String, Object> etat = new java.util.LinkedHashMap<>();
+        etat.put("threads", motDePasseService.getThreads());
+        etat.put("actifs", motDePasseService.getThreadsActifs());
+        etat.put("file", motDePasseService.getTailleFile());
+        etat.put("capaciteFile", motDePasseService.getCapaciteFile());
+        etat.put("rejets", motDePasseService.getRejets());
+        etat.put("operations", operations);
+        etat.put("latenceMoyenneMs", latenceMoyenneMs);
+        return Response.ok(etat).build();
+    }
+
+    /**
+     * GET /admin/reservations/admission
+     * Demandes de réservation admises ou refusées par l'admission par créneau.
+     * Exemple de réponse : { "admises": 950, "refusees": 212, "enCours": 3 }
+     */
+    @GET
+    @Path("/reservations/admission")
+    public Response getAdmissionReservations() {
+        if (!estAdmin()) {
+            return interdit();
+        }
+        return Response.ok(Map.of(
+                "admises", admissionReservations.getAdmises(),
+                "refusees", admissionReservations.getRefusees(),
+                "enCours", admissionReservations.getEnCours())).build();
+    }
+
+    /**
+     * GET /admin/compression
+     * Compression des réponses : nombre de réponses compressées ou laissées sous
+     * le seuil, ratio (taille compressée / taille d'origine) et temps passé à
+     * compresser (hors écriture vers le client).
+     * Exemple de réponse :
+     * { "compressees": 310, "sousSeuil": 1200, "octetsAvant": 9100000,
+     * "octetsApres": 1400000, "ratio": 0.154, "dureeTotaleMs": 820.4,
+     * "dureeMoyenneMs": 2.65 }
+     */
+    @GET
+    @Path("/compression")
+    public Response getCompression() {
+        if (!estAdmin()) {
+            return interdit();
+        }
+        long compressees = statistiquesCompression.getCompressees();
+        double dureeTotaleMs = statistiquesCompression.getDureeNanos() / 1_000_000.0;
+        Map<String, Object> etat = new java.util.LinkedHashMap<>();
+        etat.put("compressees", compressees);
+        etat.put("sousSeuil", statistiquesCompression.getNonCompressees());
+        etat.put("octetsAvant", statistiquesCompression.getOctetsAvant());
+        etat.put("octetsApres", statistiquesCompression.getOctetsApres());
+        etat.put("ratio", statistiquesCompression.getRatio());
+        etat.put("dureeTotaleMs", dureeTotaleMs);
+        etat.put("dureeMoyenneMs", compressees == 0 ? 0 : dureeTotaleMs / compressees);
+        return Response.ok(etat).build();
+    }
+
+    /**
+     * GET /admin/sql/top?n=10&tri=jdbc
+     * Endpoints les plus coûteux en SQL sur les dernières minutes, triés par
+     * temps JDBC ("jdbc"), instructions par requête ("instructions") ou
+     * suspicions de N+1 ("n1"). Sans mesure JDBC (consultation.sql.profilage.jdbc,
+     * désactivée par défaut), lignes et jdbcMs restent à 0 et le tri "jdbc" se
+     * fait par instructions.
+     * Exemple de réponse :
+     * { "depuis": "2024-05-02T08:10:00Z", "budget": 20, "actif": true, "jdbc": true, "endpoints": [
+     * { "endpoint": "GET /rendezvous/medecin/{id}/historique", "requetes": 40,
+     * "instructions": 1240, "instructionsParRequete": 31.0, "maxParRequete": 52,
+     * "lignes": 2100, "jdbcMs": 310.2, "jdbcMsParRequete": 7.76, "suspicionsN1": 38,
+     * "exempleN1": "25 x select ... from patient ..." } ] }
+     */
+    @GET
+    @Path("/sql/top")
+    public Response getSqlTop(@QueryParam("n") @DefaultValue("10") int n,
+            @QueryParam("tri") @DefaultValue("jdbc") String tri) {
+        if (!estAdmin()) {
+            return interdit();
+        }
+        if (n < 1 || !java.util.Set.of("jdbc", "instructions", "n1").contains(tri)) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\":\"n doit être positif et tri valoir jdbc, instructions ou n1\"}")
+                    .build();
+        }
+        return Response.ok(ProfilSql.top(n, tri)).build();
+    }
+
+    /**
+     * POST /admin/jfr/dump?minutes=10
+     * Écrit les dernières minutes de l'enregistrement JFR continu dans un
+     * fichier .jfr sur le serveur (à ouvrir avec JDK Mission Control ou
+     * "jfr print").
+     * Exemple de réponse :
+     * { "fichier": "/tmp/consultation-jfr/consultation-20240502-081500.jfr",
+     * "octets": 18230411, "minutes": 10 }
+     */
+    @POST
+    @Path("/jfr/dump")
+    public Response dumpJfr(@QueryParam("minutes") @DefaultValue("10") int minutes) {
+        if (!estAdmin()) {
+            return interdit();
+        }
+        if (!enregistreurJfr.isActif()) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .entity("{\"error\":\"Enregistrement JFR inactif\"}")
+                    .build();
+        }
+        if (minutes < 1 || minutes > enregistreurJfr.getMinutesMax()) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\":\"minutes doit être compris entre 1 et "
+                            + enregistreurJfr.getMinutesMax() + "\"}")
+                    .build();
+        }
+        try {
+            java.nio.file.Path fichier = enregistreurJfr.exporter(minutes);
+            Map<String, Object> resultat = new java.util.LinkedHashMap<>();
+            resultat.put("fichier", fichier.toAbsolutePath().toString());
+            resultat.put("octets", java.nio.file.Files.size(fichier));
+            resultat.put("minutes", minutes);
+            return Response.ok(resultat).build();
+        } catch (java.io.IOException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("{\"error\":\"Export JFR impossible\"}")
+                    .build();
+        }
+    }
+
+    /**
+     * GET /admin/export/rendezvous?debut=2024-01-01&fin=2024-12-31&format=csv
+     * Rendez-vous dont le créneau tombe dans la période, avec créneau, patient,
+     * médecin et service, en CSV (format=csv) ou NDJSON (format=ndjson,
+     * défaut). Avec creneauxLibres=true, tous les créneaux de la période sont
+     * exportés, y compris ceux sans rendez-vous. Le fichier est écrit au fil
+     * de la lecture en base.
+     */
+    @GET
+    @Path("/export/rendezvous")
+    @Produces({ "text/csv", "application/x-ndjson", MediaType.APPLICATION_JSON })
+    public Response exporterRendezVous(@QueryParam("debut") String debut, @QueryParam("fin") String fin,
+            @QueryParam("format") @DefaultValue("ndjson") String format,
+            @QueryParam("creneauxLibres") @DefaultValue("false") boolean creneauxLibres) {
+        if (!estAdmin()) {
+            return interdit();
+        }
+        LocalDate dateDebut;
+        LocalDate dateFin;
+        try {
+            dateDebut = LocalDate.parse(debut);
+            dateFin = LocalDate.parse(fin);
+        } catch (NullPointerException | DateTimeParseException e) {
+            return requeteInvalide("debut et fin sont requis au format yyyy-MM-dd");
+        }
+        if (dateFin.isBefore(dateDebut)) {
+            return requeteInvalide("fin doit être postérieure ou égale à debut");
+        }
+        ExportRendezVousService.Format formatExport;
+        String type;
+        if (format.equalsIgnoreCase("csv")) {
+            formatExport = ExportRendezVousService.Format.CSV;
+            type = "text/csv; charset=utf-8";
+        } else if (format.equalsIgnoreCase("ndjson")) {
+            formatExport = ExportRendezVousService.Format.NDJSON;
+            type = "application/x-ndjson";
+        } else {
+            return requeteInvalide("format doit valoir csv ou ndjson");
+        }
+
+        StreamingOutput flux = sortie -> exportRendezVousService.exporter(dateDebut, dateFin, formatExport,
+                creneauxLibres, sortie);
+        String fichier = "rendezvous-" + dateDebut + "-" + dateFin + "." + format.toLowerCase();
+        return Response.ok(flux, type)
+                .header("Content-Disposition", "attachment; filename=\"" + fichier + "\"")
+                .build();
+    }
+
+    private Response requeteInvalide(String message) {
+        return Response.status(Response.Status.BAD_REQUEST)
+                .type(MediaType.APPLICATION_JSON)
+                .entity("{\"error\":\"" + message + "\"}")
+                .build();
+    }
+
+    private boolean estAdmin() {
+        return Role.ADMIN.name().equals(requestContext.getProperty("userRole"));
+    }
+
+    private Response interdit() {
+        return Response.status(Response.Status.FORBIDDEN)
+                .type(MediaType.APPLICATION_JSON)
+                .entity("{\"error\":\"Accès réservé aux administrateurs\"}")
+                .build();
+    }
+}
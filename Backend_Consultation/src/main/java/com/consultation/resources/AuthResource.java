@@ -1,9 +1,12 @@
 package com.consultation.resources;
-import jakarta.transaction.Transactional;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import com.consultation.models.Utilisateur;
+import com.consultation.security.MotDePasseService;
 import com.consultation.services.AuthService;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
@@ -11,6 +14,8 @@ import com.consultation.models.Role;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @Path("/auth")
 @Singleton
@@ -24,6 +29,9 @@ public class AuthResource {
     @Inject
     private AuthService authService;
 
+    @Inject
+    private MotDePasseService motDePasseService;
+
     /**
      * Inscription d'un nouvel utilisateur
      *
@@ -64,11 +72,23 @@ public class AuthResource {
      * "role": "ADMIN",
      * "actif": true
      * }
+     *
+     * Le traitement (hachage BCrypt compris) est exécuté sur le pool de
+     * MotDePasseService ; 503 avec Retry-After si ce pool est saturé.
      */
     @POST
     @Path("/register")
-    @Transactional
-    public Response register(Map<String, Object> json) {
+    public void register(Map<String, Object> json, @Suspended AsyncResponse asyncResponse) {
+        try {
+            motDePasseService.executer(() -> inscrire(json))
+                    .whenComplete((response, erreur) -> asyncResponse.resume(
+                            erreur == null ? response : erreurInterne(erreur)));
+        } catch (RejectedExecutionException e) {
+            asyncResponse.resume(serviceSature());
+        }
+    }
+
+    private Response inscrire(Map<String, Object> json) {
         try {
             Utilisateur user = new Utilisateur();
             user.setNom((String) json.get("nom"));
@@ -166,20 +186,49 @@ public class AuthResource {
      * "email": "babouserigne028@gmail.com",
      * "motDePasse": "passer"
      * }
+     *
+     * La vérification BCrypt est exécutée sur le pool de MotDePasseService ;
+     * 503 avec Retry-After si ce pool est saturé.
      */
     @POST
     @Path("/login")
-    public Response login(Utilisateur credentials) {
+    public void login(Utilisateur credentials, @Suspended AsyncResponse asyncResponse) {
         try {
-            Map<String, Object> response = authService.login(credentials.getEmail(), credentials.getMotDePasse());
-            return Response.ok(response).build();
-        } catch (Exception e) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity("{\"error\":\"" + e.getMessage() + "\"}")
-                    .build();
+            motDePasseService
+                    .executer(() -> authService.login(credentials.getEmail(), credentials.getMotDePasse()))
+                    .whenComplete((response, erreur) -> {
+                        if (erreur == null) {
+                            asyncResponse.resume(Response.ok(response).build());
+                        } else {
+                            Throwable cause = erreur instanceof CompletionException && erreur.getCause() != null
+                                    ? erreur.getCause()
+                                    : erreur;
+                            asyncResponse.resume(Response.status(Response.Status.UNAUTHORIZED)
+                                    .entity("{\"error\":\"" + cause.getMessage() + "\"}")
+                                    .build());
+                        }
+                    });
+        } catch (RejectedExecutionException e) {
+            asyncResponse.resume(serviceSature());
         }
     }
 
+    /**
+     * Réponse 503 renvoyée quand le pool de hachage est saturé
+     */
+    private Response serviceSature() {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, 1)
+                .entity("{\"error\":\"Serveur momentanément surchargé, veuillez réessayer.\"}")
+                .build();
+    }
+
+    private Response erreurInterne(Throwable erreur) {
+        return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                .entity("{\"error\":\"" + String.valueOf(erreur.getMessage()).replaceAll("\"", "'") + "\"}")
+                .build();
+    }
+
     /**
      * Déconnexion de l'utilisateur
      * Ce endpoint peut être adapté selon la gestion du token côté client (ex:
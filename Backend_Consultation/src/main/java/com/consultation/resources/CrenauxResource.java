@@ -1,11 +1,21 @@
 package com.consultation.resources;
 
+import com.consultation.cache.CreneauDisponible;
+import com.consultation.config.Parametres;
+import com.consultation.filters.JWTAuthFilter;
 import com.consultation.models.Crenaux;
+import com.consultation.models.StatutCrenau;
+import com.consultation.security.JWTUtil;
 import com.consultation.services.CrenauxService;
+import com.consultation.services.DiffusionCreneauxService;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
 import java.util.List;
 import java.util.Map;
 
@@ -14,9 +24,24 @@ import java.util.Map;
 @Consumes(MediaType.APPLICATION_JSON)
 public class CrenauxResource {
 
+    /**
+     * Durée de validité des tokens du flux SSE : le temps d'ouvrir la connexion.
+     */
+    private static final long DUREE_JETON_FLUX_MS = Parametres.entierLong("consultation.flux.jeton.secondes", 60)
+            * 1000;
+
     @Inject
     private CrenauxService crenauxService;
 
+    @Inject
+    private DiffusionCreneauxService diffusionCreneauxService;
+
+    @Inject
+    private JWTUtil jwtUtil;
+
+    @Context
+    private ContainerRequestContext requestContext;
+
     /**
      * GET /creneaux/medecin/{medecinId}
      * Retourne tous les créneaux d'un médecin
@@ -83,21 +108,22 @@ public class CrenauxResource {
 
     /**
      * GET /creneaux/medecin/{medecinId}/disponibles
-     * Retourne les créneaux disponibles (LIBRE) d'un médecin avec les dates
+     * Retourne les créneaux disponibles (LIBRE) d'un médecin avec les dates.
+     * Servi par l'index en mémoire des créneaux libres.
      */
     @GET
     @Path("/medecin/{medecinId}/disponibles")
     public Response getCreneauxDisponibles(@PathParam("medecinId") Long medecinId) {
         try {
-            List<Crenaux> creneaux = crenauxService.getCrenauxMedecin(medecinId, null, "LIBRE");
+            List<CreneauDisponible> creneaux = crenauxService.getCreneauxDisponibles(medecinId, null);
             // Transformer pour inclure la date (car dateDay est @JsonIgnore)
             List<Map<String, Object>> result = creneaux.stream().map(c -> {
                 Map<String, Object> map = new java.util.HashMap<>();
-                map.put("id", c.getId());
-                map.put("date", c.getDateDay().toString());
-                map.put("heureDebut", c.getHeureDebut().toString());
-                map.put("heureFin", c.getHeureFin().toString());
-                map.put("statut", c.getStatut().name());
+                map.put("id", c.id());
+                map.put("date", c.dateDay().toString());
+                map.put("heureDebut", c.heureDebut().toString());
+                map.put("heureFin", c.heureFin().toString());
+                map.put("statut", StatutCrenau.LIBRE.name());
                 return map;
             }).collect(java.util.stream.Collectors.toList());
             return Response.ok(result).build();
@@ -107,4 +133,44 @@ public class CrenauxResource {
                     .build();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * GET /creneaux/medecin/{medecinId}/flux/jeton
+     * Token de courte durée pour ouvrir le flux SSE depuis un navigateur, qui ne
+     * peut pas envoyer d'en-tête Authorization avec EventSource :
+     * new EventSource(".../creneaux/medecin/5/flux?jeton=" + jeton)
+     * Le token n'est vérifié qu'à l'ouverture ; après une coupure, le client en
+     * redemande un avant de se reconnecter.
+     * Réponse : {"jeton": "...", "expiration": 60}
+     */
+    @GET
+    @Path("/medecin/{medecinId}/flux/jeton")
+    public Response jetonFluxCreneaux(@PathParam("medecinId") Long medecinId) {
+        JWTUtil.JetonVerifie jeton = (JWTUtil.JetonVerifie) requestContext.getProperty("jeton");
+        if (jeton == null) {
+            return Response.status(Response.Status.UNAUTHORIZED)
+                    .entity("{\"error\":\"Token manquant\"}")
+                    .build();
+        }
+        String jetonFlux = jwtUtil.creerJetonPortee(jeton, JWTAuthFilter.PORTEE_FLUX_CRENEAUX + medecinId,
+                DUREE_JETON_FLUX_MS);
+        return Response.ok(Map.of("jeton", jetonFlux, "expiration", DUREE_JETON_FLUX_MS / 1000))
+                .header("Cache-Control", "no-store")
+                .build();
+    }
+
+    /**
+     * GET /creneaux/medecin/{medecinId}/flux
+     * Flux Server-Sent Events des changements de statut des créneaux d'un médecin.
+     * Chaque événement "creneau" contient :
+     * {"id": 10, "dateDay": "2026-02-18", "heureDebut": "08:30", "statut": "RESERVE"}
+     * Authentification par en-tête Bearer, ou par ?jeton= (voir flux/jeton).
+     */
+    @GET
+    @Path("/medecin/{medecinId}/flux")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public void fluxCreneaux(@PathParam("medecinId") Long medecinId, @Context SseEventSink sink,
+            @Context Sse sse) {
+        diffusionCreneauxService.abonner(medecinId, sink, sse);
+    }
+}
@@ -1,6 +1,10 @@
 
 package com.consultation.resources;
 
+import com.consultation.cache.InstantanesCatalogue;
+import com.consultation.cache.VersionsReferentiel;
+import com.consultation.dto.MedecinDto;
+import com.consultation.filters.CacheHttp;
 import com.consultation.models.Medecin;
 import com.consultation.services.MedecinService;
 import com.consultation.services.UtilisateurService;
@@ -20,20 +24,27 @@ import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.core.HttpHeaders;
 import java.util.List;
-import java.util.stream.Collectors;
 import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 @Path("/medecins")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 public class MedecinResource {
+
+    private static final Logger LOGGER = Logger.getLogger(MedecinResource.class.getName());
     @Inject
     private MedecinService medecinService;
     @Inject
     private UtilisateurService utilisateurService;
     @Inject
     private ServiceService serviceService;
+    @Inject
+    private InstantanesCatalogue instantanes;
 
     @POST
     @Path("/register")
@@ -81,30 +92,15 @@ public class MedecinResource {
             medecinService.createMedecin(created, specialite, dureeSeance, adresseCabinet, service);
             return Response.status(Response.Status.CREATED).entity(created).build();
         } catch (Exception e) {
-            e.printStackTrace();
+            LOGGER.log(Level.SEVERE, "Inscription du médecin impossible", e);
             return Response.status(Response.Status.BAD_REQUEST)
                     .entity("Erreur lors de l'inscription du médecin : " + e.getMessage()).build();
         }
     }
 
     @GET
-    public List<Map<String, ? extends Object>> getAllMedecins() {
-        List<Medecin> medecins = medecinService.findAll();
-        return medecins.stream().map(m -> {
-            Map<String, Object> map = new java.util.HashMap<>();
-            map.put("id", m.getId());
-            map.put("nom", m.getUtilisateur().getNom());
-            map.put("prenom", m.getUtilisateur().getPrenom());
-            map.put("email", m.getUtilisateur().getEmail());
-            map.put("telephone", m.getUtilisateur().getTelephone());
-            map.put("role", m.getUtilisateur().getRole().name());
-            map.put("actif", m.getUtilisateur().isActif());
-            map.put("specialite", m.getSpecialite());
-            map.put("dureeSeance", m.getDureeSeance());
-            map.put("adresseCabinet", m.getAdresseCabinet());
-            map.put("serviceId", m.getService() != null ? m.getService().getId() : null);
-            return map;
-        }).collect(Collectors.toList());
+    public List<MedecinDto> getAllMedecins() {
+        return medecinService.findAllDto();
     }
 
     @PUT
@@ -187,7 +183,7 @@ public class MedecinResource {
             medecinService.save(medecin);
             return Response.ok(medecin).build();
         } catch (Exception e) {
-            e.printStackTrace();
+            LOGGER.log(Level.SEVERE, "Mise à jour du médecin " + id + " impossible", e);
             return Response.status(Response.Status.BAD_REQUEST)
                     .entity("Erreur lors de la mise à jour du médecin : " + e.getMessage()).build();
         }
@@ -205,7 +201,7 @@ public class MedecinResource {
             medecinService.delete(id);
             return Response.noContent().build();
         } catch (Exception e) {
-            e.printStackTrace();
+            LOGGER.log(Level.SEVERE, "Suppression du médecin " + id + " impossible", e);
             return Response.status(Response.Status.BAD_REQUEST)
                     .entity("Erreur lors de la suppression du médecin : " + e.getMessage()).build();
         }
@@ -213,29 +209,16 @@ public class MedecinResource {
 
     /**
      * GET /medecins/service/{serviceId}
-     * Retourne tous les médecins d'un service donné
+     * Retourne tous les médecins d'un service donné (instantané déjà encodé,
+     * voir InstantanesCatalogue)
      */
     @GET
     @Path("/service/{serviceId}")
-    public Response getMedecinsByService(@PathParam("serviceId") Long serviceId) {
+    @CacheHttp({ VersionsReferentiel.Famille.SERVICES, VersionsReferentiel.Famille.MEDECINS })
+    public Response getMedecinsByService(@PathParam("serviceId") Long serviceId,
+            @HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding) {
         try {
-            List<Medecin> medecins = medecinService.findByService(serviceId);
-            List<Map<String, Object>> result = medecins.stream().map(m -> {
-                Map<String, Object> map = new java.util.HashMap<>();
-                map.put("id", m.getId());
-                map.put("nom", m.getUtilisateur().getNom());
-                map.put("prenom", m.getUtilisateur().getPrenom());
-                map.put("email", m.getUtilisateur().getEmail());
-                map.put("telephone", m.getUtilisateur().getTelephone());
-                map.put("specialite", m.getSpecialite());
-                map.put("dureeSeance", m.getDureeSeance());
-                map.put("adresseCabinet", m.getAdresseCabinet());
-                map.put("actif", m.getUtilisateur().isActif());
-                map.put("serviceId", m.getService() != null ? m.getService().getId() : null);
-                map.put("serviceName", m.getService() != null ? m.getService().getNom() : null);
-                return map;
-            }).collect(Collectors.toList());
-            return Response.ok(result).build();
+            return instantanes.getMedecinsDuService(serviceId).reponse(acceptEncoding);
         } catch (Exception e) {
             return Response.status(Response.Status.BAD_REQUEST)
                     .entity("{\"error\":\"" + e.getMessage() + "\"}")
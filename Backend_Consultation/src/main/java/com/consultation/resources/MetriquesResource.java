@@ -0,0 +1,82 @@
+package com.consultation.resources;
+
+import com.consultation.config.Parametres;
+import com.consultation.metrics.ExpositionPrometheus;
+import com.consultation.models.Role;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Métriques de l'application au format texte Prometheus.
+ *
+ * Accès réservé par défaut : token JWT ADMIN, ou jeton de collecte dédié
+ * (consultation.metriques.jeton) envoyé par Prometheus en
+ * "Authorization: Bearer <jeton>". L'exposition sans authentification doit
+ * être demandée explicitement (consultation.metriques.publiques=true) et
+ * l'accès restreint alors au niveau du proxy.
+ */
+@Path("/metrics")
+public class MetriquesResource {
+
+    /**
+     * Type de contenu de l'exposition texte Prometheus.
+     */
+    private static final String TEXTE_PROMETHEUS = "text/plain; version=0.0.4; charset=utf-8";
+
+    /**
+     * Endpoint ouvert sans authentification, sur demande explicite.
+     */
+    private static final boolean PUBLIQUES = Parametres.booleen("consultation.metriques.publiques", false);
+
+    /**
+     * Jeton de collecte attendu, vide si aucun n'est configuré.
+     */
+    private static final byte[] JETON_COLLECTE = Parametres.texte("consultation.metriques.jeton", "")
+            .getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Vrai si la requête peut lire les métriques sans token JWT : exposition
+     * publique activée, ou en-tête Authorization portant le jeton de collecte
+     * (lu aussi par JWTAuthFilter).
+     */
+    public static boolean collecteAutorisee(String authorization) {
+        if (PUBLIQUES) {
+            return true;
+        }
+        if (JETON_COLLECTE.length == 0 || authorization == null || !authorization.startsWith("Bearer ")) {
+            return false;
+        }
+        return MessageDigest.isEqual(JETON_COLLECTE,
+                authorization.substring(7).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Context
+    private ContainerRequestContext requestContext;
+
+    @Inject
+    private ExpositionPrometheus exposition;
+
+    /**
+     * GET /metrics
+     */
+    @GET
+    @Produces(TEXTE_PROMETHEUS)
+    public Response getMetriques() {
+        if (!collecteAutorisee(requestContext.getHeaderString(HttpHeaders.AUTHORIZATION))
+                && !Role.ADMIN.name().equals(requestContext.getProperty("userRole"))) {
+            return Response.status(Response.Status.FORBIDDEN)
+                    .type("application/json")
+                    .entity("{\"error\":\"Accès réservé aux administrateurs\"}")
+                    .build();
+        }
+        return Response.ok(exposition.ecrire()).build();
+    }
+}
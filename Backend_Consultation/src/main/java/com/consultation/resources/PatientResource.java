@@ -1,11 +1,18 @@
 package com.consultation.resources;
 
+import com.consultation.dto.PatientDto;
 import com.consultation.models.Patient;
+import com.consultation.models.Role;
+import com.consultation.services.ImportPatientsService;
 import com.consultation.services.PatientService;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @Path("/patients")
@@ -15,14 +22,57 @@ public class PatientResource {
     @Inject
     private PatientService patientService;
 
+    @Inject
+    private ImportPatientsService importPatientsService;
+
+    @Context
+    private ContainerRequestContext requestContext;
+
     /**
      * Récupère la liste de tous les patients.
      * 
      * @return liste des patients
      */
     @GET
-    public List<Patient> getAllPatients() {
-        return patientService.getAllPatients();
+    public List<PatientDto> getAllPatients() {
+        return patientService.listerPatients();
+    }
+
+    /**
+     * POST /patients/import (ADMIN)
+     * Import en masse de patients depuis un fichier CSV (text/csv, en-tête
+     * nom;prenom;email;telephone;motDePasse;dateNaissance;adresse, séparateur
+     * "," ou ";") ou NDJSON (application/x-ndjson, un objet par ligne).
+     * Les lignes invalides ou en doublon sont rapportées sans interrompre
+     * l'import.
+     * Exemple de réponse :
+     * { "lignes": 5000, "importes": 4988, "erreurs": 12, "detailErreurs": [
+     * { "ligne": 17, "email": "a@b.fr", "erreur": "Un utilisateur avec cet email existe déjà." } ],
+     * "erreursTronquees": false, "dureeMs": 9120 }
+     */
+    @POST
+    @Path("/import")
+    @Consumes({ "text/csv", "application/x-ndjson" })
+    public Response importer(InputStream corps, @HeaderParam("Content-Type") MediaType type) {
+        if (!Role.ADMIN.name().equals(requestContext.getProperty("userRole"))) {
+            return Response.status(Response.Status.FORBIDDEN)
+                    .entity("{\"error\":\"Accès réservé aux administrateurs\"}")
+                    .build();
+        }
+        ImportPatientsService.Format format = type != null && type.isCompatible(MediaType.valueOf("text/csv"))
+                ? ImportPatientsService.Format.CSV
+                : ImportPatientsService.Format.NDJSON;
+        try {
+            return Response.ok(importPatientsService.importer(corps, format)).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\":\"" + e.getMessage() + "\"}")
+                    .build();
+        } catch (IOException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity("{\"error\":\"Lecture du fichier impossible\"}")
+                    .build();
+        }
     }
 
     /**
@@ -1,8 +1,13 @@
 package com.consultation.resources;
 
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import com.consultation.cache.VersionsPlanning;
+import com.consultation.filters.ConditionsHttp;
 import com.consultation.services.PlanningConfigService;
 
 import java.time.LocalDate;
@@ -21,6 +26,9 @@ public class PlanningConfigResource {
     @Inject
     private PlanningConfigService planningConfigService;
 
+    @Inject
+    private VersionsPlanning versionsPlanning;
+
     /**
      * POST /planning-config/{medecinId}
      * Ajouter une configuration de planning pour un médecin
@@ -44,12 +52,18 @@ public class PlanningConfigResource {
      * Retourne la liste des plannings et créneaux du médecin pour chaque date
      * comprise dans la plage.
      * Si aucun planning n’est trouvé, retourne une erreur 404.
+     *
+     * La réponse porte un ETag et un Last-Modified. Si le client renvoie l'un
+     * d'eux (If-None-Match / If-Modified-Since) et que les plannings du médecin
+     * n'ont pas changé depuis, la réponse est un 304 sans corps, sans lecture en
+     * base.
      */
     @POST
     @Path("/{medecinId}/plage")
     public Response getPlanningsByDateRangeFromBody(
             @PathParam("medecinId") Long medecinId,
-            Map<String, Object> body) {
+            Map<String, Object> body,
+            @Context HttpHeaders headers) {
 
         String dateDebutStr = body.get("dateDebut") != null ? body.get("dateDebut").toString() : null;
         String dateFinStr = body.get("dateFin") != null ? body.get("dateFin").toString() : null;
@@ -62,6 +76,16 @@ public class PlanningConfigResource {
         LocalDate dateDebut = LocalDate.parse(dateDebutStr);
         LocalDate dateFin = LocalDate.parse(dateFinStr);
 
+        // Version lue avant les données : au pire la vue envoyée est plus récente
+        // que son ETag, et le client la recharge une fois de trop
+        VersionsPlanning.Version version = versionsPlanning.get(medecinId);
+        EntityTag etag = versionsPlanning.etag(medecinId, version, dateDebut, dateFin);
+        if (nonModifie(headers, etag, version)) {
+            return Response.notModified(etag)
+                    .lastModified(version.derniereModification())
+                    .build();
+        }
+
         List<PlanningConfigService.PlanningConfigWithCreneaux> result = planningConfigService
                 .getPlanningsWithCreneauxInRange(medecinId, dateDebut, dateFin);
 
@@ -69,7 +93,35 @@ public class PlanningConfigResource {
             return Response.status(Response.Status.NOT_FOUND)
                     .entity("{\"error\":\"Aucun planning trouvé pour ce médecin dans la plage demandée.\"}").build();
         }
-        return Response.ok(result).build();
+        return Response.ok(result)
+                .tag(etag)
+                .lastModified(version.derniereModification())
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                .build();
+    }
+
+    /**
+     * Conditions de revalidation du client. If-None-Match prime sur
+     * If-Modified-Since. Request.evaluatePreconditions n'est pas utilisé car il
+     * répond 412 (et non 304) aux requêtes POST.
+     */
+    private boolean nonModifie(HttpHeaders headers, EntityTag etag, VersionsPlanning.Version version) {
+        List<String> ifNoneMatch = headers.getRequestHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && !ifNoneMatch.isEmpty()) {
+            return ConditionsHttp.correspond(String.join(",", ifNoneMatch), etag);
+        }
+        String ifModifiedSince = headers.getHeaderString(HttpHeaders.IF_MODIFIED_SINCE);
+        if (ifModifiedSince != null) {
+            try {
+                long depuis = java.time.ZonedDateTime
+                        .parse(ifModifiedSince, java.time.format.DateTimeFormatter.RFC_1123_DATE_TIME)
+                        .toInstant().toEpochMilli();
+                return version.derniereModification().getTime() <= depuis;
+            } catch (java.time.format.DateTimeParseException e) {
+                return false;
+            }
+        }
+        return false;
     }
 
     /**
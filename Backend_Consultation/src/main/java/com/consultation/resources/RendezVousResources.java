@@ -3,11 +3,16 @@ package com.consultation.resources;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 import jakarta.inject.Inject;
 import jakarta.persistence.PersistenceException;
+import com.consultation.services.AdmissionReservations;
+import com.consultation.services.HistoriqueRendezVousService;
+import com.consultation.services.IdempotenceService;
+import com.consultation.mapper.RendezVousMapper;
 import com.consultation.services.RendezVousService;
+import com.consultation.services.StatistiquesService;
 import com.consultation.models.RendezVous;
-import com.consultation.models.StatutRDV;
 
 import java.util.List;
 
@@ -21,6 +26,23 @@ public class RendezVousResources {
     @Inject
     private RendezVousService rendezVousService;
 
+    @Inject
+    private StatistiquesService statistiquesService;
+
+    @Inject
+    private HistoriqueRendezVousService historiqueService;
+
+    @Inject
+    private AdmissionReservations admission;
+
+    @Inject
+    private IdempotenceService idempotenceService;
+
+    /**
+     * Type MIME des exports ligne à ligne (un objet JSON par ligne).
+     */
+    private static final String NDJSON = "application/x-ndjson";
+
     /**
      * POST /rendezvous
      * Prendre un rendez-vous.
@@ -30,35 +52,64 @@ public class RendezVousResources {
      * "creneauId": 10,
      * "motif": "Consultation générale"
      * }
+     * En-tête optionnel "Idempotency-Key" : une requête rejouée avec la même clé
+     * (pour le même patient) reçoit la réponse 201 d'origine sans nouvelle
+     * réservation ; 409 avec Retry-After si la requête d'origine est encore en
+     * cours, 422 si la clé a déjà servi pour un autre créneau ou motif.
      */
     @POST
-    public Response prendreRendezVous(Map<String, Object> body) {
+    public Response prendreRendezVous(Map<String, Object> body,
+            @HeaderParam("Idempotency-Key") String idempotencyKey) {
+        String cleIdempotence = null;
         try {
             Long patientId = Long.parseLong(body.get("patientId").toString());
             Long creneauId = Long.parseLong(body.get("creneauId").toString());
             String motif = body.get("motif") != null ? body.get("motif").toString() : null;
 
-            RendezVous rdv = rendezVousService.prendreRendezVous(patientId, creneauId, motif);
+            String empreinte = null;
+            if (idempotencyKey != null && !idempotencyKey.isBlank()) {
+                if (idempotencyKey.length() > IdempotenceService.LONGUEUR_CLE_MAX) {
+                    Map<String, String> errorResponse = new java.util.HashMap<>();
+                    errorResponse.put("error", "En-tête Idempotency-Key trop long");
+                    errorResponse.put("code", "BAD_REQUEST");
+                    return Response.status(Response.Status.BAD_REQUEST).entity(errorResponse).build();
+                }
+                String cle = patientId + ":" + idempotencyKey;
+                empreinte = IdempotenceService.empreinte(creneauId, motif);
+                IdempotenceService.ReponseEnregistree deja = idempotenceService.reserver(cle, empreinte);
+                if (deja != null) {
+                    return reponseDejaTraitee(deja, empreinte);
+                }
+                cleIdempotence = cle;
+            }
 
-            // Retourner une réponse simplifiée pour éviter les références circulaires
-            Map<String, Object> response = new java.util.HashMap<>();
-            response.put("id", rdv.getId());
-            response.put("motif", rdv.getMotif());
-            response.put("statutRdv", rdv.getStatutRdv().name());
-            response.put("dateCreation", rdv.getDateCreation() != null ? rdv.getDateCreation().toString() : null);
-            if (rdv.getCreneau() != null) {
-                Map<String, Object> creneauInfo = new java.util.HashMap<>();
-                creneauInfo.put("id", rdv.getCreneau().getId());
-                creneauInfo.put("date",
-                        rdv.getCreneau().getDateDay() != null ? rdv.getCreneau().getDateDay().toString() : null);
-                creneauInfo.put("heureDebut",
-                        rdv.getCreneau().getHeureDebut() != null ? rdv.getCreneau().getHeureDebut().toString() : null);
-                creneauInfo.put("heureFin",
-                        rdv.getCreneau().getHeureFin() != null ? rdv.getCreneau().getHeureFin().toString() : null);
-                response.put("creneau", creneauInfo);
+            // Une seule demande par créneau va jusqu'à la base ; les autres sont
+            // refusées sans transaction
+            if (!admission.entrer(creneauId)) {
+                Map<String, String> errorResponse = new java.util.HashMap<>();
+                errorResponse.put("error",
+                        "Ce créneau est en cours de réservation par un autre utilisateur. Veuillez réessayer.");
+                errorResponse.put("code", "CONFLICT");
+                return Response.status(Response.Status.CONFLICT).entity(errorResponse).build();
+            }
+            RendezVous rdv;
+            try {
+                // Avec une clé, la réponse est enregistrée dans la transaction du rendez-vous
+                rdv = cleIdempotence != null
+                        ? rendezVousService.prendreRendezVous(patientId, creneauId, motif, cleIdempotence, empreinte)
+                        : rendezVousService.prendreRendezVous(patientId, creneauId, motif);
+            } finally {
+                admission.sortir(creneauId);
             }
-            response.put("message", "Rendez-vous créé avec succès");
 
+            // Retourner une réponse simplifiée pour éviter les références circulaires
+            Map<String, Object> response = RendezVousMapper.reponseCreation(rdv);
+
+            if (cleIdempotence != null) {
+                idempotenceService.terminer(cleIdempotence, empreinte, Response.Status.CREATED.getStatusCode(),
+                        response);
+                cleIdempotence = null;
+            }
             return Response.status(Response.Status.CREATED).entity(response).build();
 
         } catch (IllegalStateException e) {
@@ -87,9 +138,39 @@ public class RendezVousResources {
             errorResponse.put("error", "Erreur lors de la création du rendez-vous: " + e.getMessage());
             errorResponse.put("code", "INTERNAL_ERROR");
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(errorResponse).build();
+        } finally {
+            // Réservation de la clé non aboutie : la requête peut être retentée
+            if (cleIdempotence != null) {
+                idempotenceService.liberer(cleIdempotence);
+            }
         }
     }
 
+    /**
+     * Réponse à une requête dont la clé Idempotency-Key est déjà connue.
+     */
+    private static Response reponseDejaTraitee(IdempotenceService.ReponseEnregistree deja, String empreinte) {
+        if (deja.empreinte() != null && !deja.empreinte().equals(empreinte)) {
+            Map<String, String> errorResponse = new java.util.HashMap<>();
+            errorResponse.put("error", "Cette clé Idempotency-Key a déjà servi pour une autre demande");
+            errorResponse.put("code", "UNPROCESSABLE_ENTITY");
+            return Response.status(422).entity(errorResponse).build();
+        }
+        if (deja.enCours()) {
+            Map<String, String> errorResponse = new java.util.HashMap<>();
+            errorResponse.put("error", "La demande d'origine est encore en cours de traitement. Veuillez réessayer.");
+            errorResponse.put("code", "CONFLICT");
+            return Response.status(Response.Status.CONFLICT).entity(errorResponse)
+                    .header("Retry-After", "1")
+                    .build();
+        }
+        return Response.status(deja.statut())
+                .entity(deja.corps())
+                .type(MediaType.APPLICATION_JSON)
+                .header("Idempotent-Replayed", "true")
+                .build();
+    }
+
     /**
      * Endpoint permettant de récupérer des statistiques globales sur les
      * consultations (rendez-vous).
@@ -108,16 +189,7 @@ public class RendezVousResources {
     @GET
     @Path("/stats")
     public Response getStats() {
-        List<RendezVous> all = rendezVousService.findAll();
-        long total = all.size();
-        long realisees = all.stream().filter(r -> r.getStatutRdv() == StatutRDV.TERMINE).count();
-        long aVenir = all.stream().filter(r -> r.getStatutRdv() == StatutRDV.CONFIRME).count();
-        return Response.ok(
-                java.util.Map.of(
-                        "total", total,
-                        "realisees", realisees,
-                        "a_venir", aVenir))
-                .build();
+        return Response.ok(statistiquesService.getStatsRendezVous()).build();
     }
 
     /**
@@ -206,6 +278,28 @@ public class RendezVousResources {
         }
     }
 
+    /**
+     * GET /rendezvous/medecin/{medecinId}/historique/page?curseur=...&taille=50
+     * Historique paginé d'un médecin (même format que /patient/{id}/page).
+     */
+    @GET
+    @Path("/medecin/{medecinId}/historique/page")
+    public Response getPageHistoriqueMedecin(@PathParam("medecinId") Long medecinId,
+            @QueryParam("curseur") String curseur, @QueryParam("taille") @DefaultValue("50") int taille) {
+        return page(HistoriqueRendezVousService.Filtre.MEDECIN, medecinId, curseur, taille);
+    }
+
+    /**
+     * GET /rendezvous/medecin/{medecinId}/historique/export
+     * Historique complet d'un médecin en NDJSON, écrit au fil de la lecture.
+     */
+    @GET
+    @Path("/medecin/{medecinId}/historique/export")
+    @Produces(NDJSON)
+    public Response exporterHistoriqueMedecin(@PathParam("medecinId") Long medecinId) {
+        return export(HistoriqueRendezVousService.Filtre.MEDECIN, medecinId);
+    }
+
     /**
      * GET /rendezvous/patient/{patientId}
      * Retourne tous les rendez-vous d'un patient
@@ -223,6 +317,31 @@ public class RendezVousResources {
         }
     }
 
+    /**
+     * GET /rendezvous/patient/{patientId}/page?curseur=...&taille=50
+     * Historique paginé d'un patient, du plus récent au plus ancien.
+     * Exemple de réponse :
+     * { "elements": [ {...}, ... ], "curseurSuivant": "MjAyNS0wMy0xMnwwOTozMHw0Mg" }
+     * curseurSuivant est null sur la dernière page.
+     */
+    @GET
+    @Path("/patient/{patientId}/page")
+    public Response getPageRendezVousPatient(@PathParam("patientId") Long patientId,
+            @QueryParam("curseur") String curseur, @QueryParam("taille") @DefaultValue("50") int taille) {
+        return page(HistoriqueRendezVousService.Filtre.PATIENT, patientId, curseur, taille);
+    }
+
+    /**
+     * GET /rendezvous/patient/{patientId}/export
+     * Historique complet d'un patient en NDJSON, écrit au fil de la lecture.
+     */
+    @GET
+    @Path("/patient/{patientId}/export")
+    @Produces(NDJSON)
+    public Response exporterRendezVousPatient(@PathParam("patientId") Long patientId) {
+        return export(HistoriqueRendezVousService.Filtre.PATIENT, patientId);
+    }
+
     /**
      * GET /rendezvous/patient/{patientId}/prochain
      * Retourne le prochain rendez-vous d'un patient
@@ -276,4 +395,19 @@ public class RendezVousResources {
                     .build();
         }
     }
-}
\ No newline at end of file
+
+    private Response page(HistoriqueRendezVousService.Filtre filtre, Long id, String curseur, int taille) {
+        try {
+            return Response.ok(historiqueService.getPage(filtre, id, curseur, taille)).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", e.getMessage()))
+                    .build();
+        }
+    }
+
+    private Response export(HistoriqueRendezVousService.Filtre filtre, Long id) {
+        StreamingOutput flux = sortie -> historiqueService.exporterNdjson(filtre, id, sortie);
+        return Response.ok(flux, NDJSON).build();
+    }
+}
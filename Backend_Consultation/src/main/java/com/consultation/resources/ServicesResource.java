@@ -1,13 +1,17 @@
 package com.consultation.resources;
 
+import com.consultation.cache.InstantanesCatalogue;
+import com.consultation.cache.VersionsReferentiel;
+import com.consultation.filters.CacheHttp;
 import com.consultation.models.Service;
 import com.consultation.services.ServiceService;
+import com.consultation.services.StatistiquesService;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
-import java.util.List;
 
 @Path("/services")
 @Produces(MediaType.APPLICATION_JSON)
@@ -17,6 +21,12 @@ public class ServicesResource {
     @Inject
     private ServiceService serviceService;
 
+    @Inject
+    private StatistiquesService statistiquesService;
+
+    @Inject
+    private InstantanesCatalogue instantanes;
+
     /**
      * GET /services
      * Récupérer tous les services
@@ -25,13 +35,14 @@ public class ServicesResource {
      *   { "id": 1, "nom": "Cardiologie" },
      *   { "id": 2, "nom": "Pédiatrie" }
      * ]
+     * Le corps est un instantané déjà encodé (voir InstantanesCatalogue), envoyé
+     * compressé si le client accepte gzip.
      */
 
     @GET
-    public List<Service> getAll() {
-        List<Service> services = serviceService.findAll();
-        System.out.println("Services trouvés : " + services);
-        return services;
+    @CacheHttp(value = VersionsReferentiel.Famille.SERVICES, publique = true)
+    public Response getAll(@HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding) {
+        return instantanes.getCatalogue().reponse(acceptEncoding);
     }
 
     /**
@@ -43,6 +54,7 @@ public class ServicesResource {
 
     @GET
     @Path("/{id}")
+    @CacheHttp(value = VersionsReferentiel.Famille.SERVICES, publique = true)
     public Service getById(@PathParam("id") Long id) {
         return serviceService.findById(id);
     }
@@ -101,8 +113,7 @@ public class ServicesResource {
     @GET
     @Path("/stats")
     public Response getStats() {
-        long total = serviceService.findAll().size();
-        return Response.ok(java.util.Map.of("total", total)).build();
+        return Response.ok(statistiquesService.getStatsServices()).build();
     }
 
-}
\ No newline at end of file
+}
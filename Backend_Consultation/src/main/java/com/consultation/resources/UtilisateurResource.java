@@ -1,24 +1,37 @@
 
 package com.consultation.resources;
 
+import com.consultation.cache.VersionsReferentiel;
+import com.consultation.filters.CacheHttp;
 import com.consultation.models.Utilisateur;
+import com.consultation.security.PrincipalResolu;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import com.consultation.services.UtilisateurService;
 import com.consultation.services.MedecinService;
+import com.consultation.services.StatistiquesService;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 @Path("/utilisateurs")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 public class UtilisateurResource {
 
+    private static final Logger LOGGER = Logger.getLogger(UtilisateurResource.class.getName());
+
     @Inject
     private UtilisateurService utilisateurService;
 
+    @Inject
+    private StatistiquesService statistiquesService;
+
     /**
      * Endpoint permettant de récupérer des statistiques globales sur les
      * utilisateurs.
@@ -38,17 +51,7 @@ public class UtilisateurResource {
     @GET
     @Path("/stats")
     public Response getStats() {
-        long total = utilisateurService.findAll().size();
-        long patients = utilisateurService.findAll().stream().filter(u -> u.getRole().name().equals("PATIENT")).count();
-        long medecins = utilisateurService.findAll().stream().filter(u -> u.getRole().name().equals("MEDECIN")).count();
-        long admins = utilisateurService.findAll().stream().filter(u -> u.getRole().name().equals("ADMIN")).count();
-        return Response.ok(
-                java.util.Map.of(
-                        "total", total,
-                        "patients", patients,
-                        "medecins", medecins,
-                        "admins", admins))
-                .build();
+        return Response.ok(statistiquesService.getStatsUtilisateurs()).build();
     }
 
     @GET
@@ -97,7 +100,7 @@ public class UtilisateurResource {
             }
             return Response.ok(updated).build();
         } catch (Exception e) {
-            e.printStackTrace(); // Log l'exception côté serveur
+            LOGGER.log(Level.SEVERE, "Mise à jour de l'utilisateur " + id + " impossible", e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity("Erreur lors de la mise à jour : " + e.getMessage())
                     .build();
@@ -125,6 +128,7 @@ public class UtilisateurResource {
 
     @GET
     @Path("/medecin-par-service")
+    @CacheHttp({ VersionsReferentiel.Famille.SERVICES, VersionsReferentiel.Famille.MEDECINS })
     public Response getMedecinsParService() {
         return Response.ok(medecinService.countMedecinsByService()).build();
     }
@@ -132,18 +136,18 @@ public class UtilisateurResource {
     /**
      * Met à jour les infos de l'utilisateur courant (endpoint /me)
      * Nécessite un header Authorization: Bearer <token>
+     * L'utilisateur est identifié par le principal attaché par JWTAuthFilter.
      */
     @PUT
     @Path("/me")
     @Transactional
-    public Response updateCurrentUser(Utilisateur data, @HeaderParam("Authorization") String authHeader) {
+    public Response updateCurrentUser(Utilisateur data, @Context ContainerRequestContext requestContext) {
         try {
-            // Extraction simplifiée de l'email depuis le JWT (à adapter selon ta logique)
-            String email = extractEmailFromJwt(authHeader);
-            if (email == null) {
-                return Response.status(Response.Status.UNAUTHORIZED).entity("Token invalide ou manquant").build();
+            PrincipalResolu principal = (PrincipalResolu) requestContext.getProperty("principal");
+            if (principal == null) {
+                return Response.status(Response.Status.NOT_FOUND).build();
             }
-            Utilisateur current = utilisateurService.findByEmail(email);
+            Utilisateur current = utilisateurService.findById(principal.utilisateurId());
             if (current == null) {
                 return Response.status(Response.Status.NOT_FOUND).build();
             }
@@ -162,29 +166,10 @@ public class UtilisateurResource {
             Utilisateur updated = utilisateurService.update(current.getId(), updateData);
             return Response.ok(updated).build();
         } catch (Exception e) {
-            e.printStackTrace();
+            LOGGER.log(Level.SEVERE, "Mise à jour du profil impossible", e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity("Erreur lors de la mise à jour : " + e.getMessage())
                     .build();
         }
     }
-
-    // Méthode utilitaire pour extraire l'email du JWT (extraction simplifiée, à
-    // adapter)
-    private String extractEmailFromJwt(String authHeader) {
-        if (authHeader == null || !authHeader.startsWith("Bearer "))
-            return null;
-        String token = authHeader.substring(7);
-        try {
-            io.jsonwebtoken.Claims claims = io.jsonwebtoken.Jwts.parserBuilder()
-                    .setSigningKey("super-secret-key-very-long-and-secure-123"
-                            .getBytes(java.nio.charset.StandardCharsets.UTF_8))
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-            return claims.getSubject(); // l'email est dans subject
-        } catch (Exception e) {
-            return null;
-        }
-    }
 }
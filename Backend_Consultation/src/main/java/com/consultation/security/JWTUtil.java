@@ -1,71 +1,202 @@
 package com.consultation.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
 import jakarta.enterprise.context.ApplicationScoped;
 
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Utilitaire pour la gestion des tokens JWT.
  * Fournit des méthodes pour valider et extraire les informations des tokens.
+ *
+ * La clé et le parseur sont immuables et partagés par tous les threads. Les
+ * tokens déjà vérifiés sont conservés dans un cache borné (clé : empreinte
+ * SHA-256 du token) jusqu'à leur expiration, ce qui évite de refaire la
+ * vérification HMAC et le parsing JSON à chaque requête. Le cache est une
+ * ConcurrentHashMap lue sans verrou ; quand il dépasse sa taille, un seul
+ * thread le nettoie (tokens expirés, puis entrées quelconques jusqu'à 90 %).
  */
 @ApplicationScoped
 public class JWTUtil {
 
     private static final String SECRET_KEY = "super-secret-key-very-long-and-secure-123";
 
-    private Key getSigningKey() {
-        return new SecretKeySpec(SECRET_KEY.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+    /**
+     * Clé HMAC partagée pour signer et vérifier les tokens.
+     */
+    public static final Key SIGNING_KEY = new SecretKeySpec(SECRET_KEY.getBytes(StandardCharsets.UTF_8),
+            "HmacSHA256");
+
+    private static final JwtParser PARSER = Jwts.parserBuilder().setSigningKey(SIGNING_KEY).build();
+
+    /**
+     * Nombre maximal de tokens vérifiés gardés en cache.
+     */
+    private static final int TAILLE_CACHE = 10_000;
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    /**
+     * Informations extraites d'un token vérifié. portee est null pour un token de
+     * connexion ; sinon le token n'ouvre que la ressource indiquée (voir
+     * creerJetonPortee).
+     */
+    public record JetonVerifie(String email, String role, long expiration, String portee) {
+    }
+
+    private final ConcurrentHashMap<ByteBuffer, JetonVerifie> cache = new ConcurrentHashMap<>(1024);
+
+    private final AtomicBoolean nettoyageEnCours = new AtomicBoolean();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Vérifie un token en passant par le cache des tokens déjà vérifiés.
+     *
+     * @param token Le token JWT à vérifier
+     * @return L'email, le rôle et l'expiration du token
+     * @throws io.jsonwebtoken.JwtException Si le token est invalide ou expiré
+     */
+    public JetonVerifie verifier(String token) {
+        ByteBuffer cle = ByteBuffer.wrap(SHA256.get().digest(token.getBytes(StandardCharsets.US_ASCII)));
+        long maintenant = System.currentTimeMillis();
+        JetonVerifie jeton = cache.get(cle);
+        if (jeton != null && jeton.expiration() <= maintenant) {
+            cache.remove(cle, jeton);
+            jeton = null;
+        }
+        if (jeton != null) {
+            hits.increment();
+            return jeton;
+        }
+        misses.increment();
+
+        Claims claims = validateToken(token);
+        jeton = new JetonVerifie(claims.getSubject(), claims.get("role", String.class),
+                claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE,
+                claims.get("portee", String.class));
+        cache.put(cle, jeton);
+        if (cache.size() > TAILLE_CACHE) {
+            nettoyer(maintenant);
+        }
+        return jeton;
+    }
+
+    /**
+     * Ramène le cache sous sa taille maximale : tokens expirés d'abord, puis
+     * entrées quelconques jusqu'à 90 % de la taille. Un seul thread à la fois ;
+     * les autres continuent sans attendre.
+     */
+    private void nettoyer(long maintenant) {
+        if (!nettoyageEnCours.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            cache.values().removeIf(j -> j.expiration() <= maintenant);
+            Iterator<ByteBuffer> cles = cache.keySet().iterator();
+            while (cache.size() > TAILLE_CACHE * 9 / 10 && cles.hasNext()) {
+                cles.next();
+                cles.remove();
+            }
+        } finally {
+            nettoyageEnCours.set(false);
+        }
+    }
+
+    /**
+     * Crée un token de courte durée limité à une ressource, pour les clients qui
+     * ne peuvent pas envoyer d'en-tête Authorization (EventSource du navigateur).
+     * JWTAuthFilter le refuse en Bearer et ne l'accepte en paramètre ?jeton= que
+     * sur la ressource correspondant à sa portée.
+     *
+     * @param jeton   Le token de connexion du demandeur, déjà vérifié
+     * @param portee  La ressource ouverte par le token
+     * @param dureeMs La durée de validité en millisecondes
+     */
+    public String creerJetonPortee(JetonVerifie jeton, String portee, long dureeMs) {
+        long maintenant = System.currentTimeMillis();
+        return Jwts.builder()
+                .setSubject(jeton.email())
+                .claim("role", jeton.role())
+                .claim("portee", portee)
+                .setIssuedAt(new Date(maintenant))
+                .setExpiration(new Date(Math.min(maintenant + dureeMs, jeton.expiration())))
+                .signWith(SIGNING_KEY, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    public long getCacheHits() {
+        return hits.sum();
+    }
+
+    public long getCacheMisses() {
+        return misses.sum();
+    }
+
+    public int getCacheTaille() {
+        return cache.size();
     }
 
     /**
      * Valide un token JWT et retourne les claims.
-     * 
+     *
      * @param token Le token JWT à valider
      * @return Les claims du token si valide
      * @throws Exception Si le token est invalide ou expiré
      */
     public Claims validateToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return PARSER.parseClaimsJws(token).getBody();
     }
 
     /**
      * Extrait l'email de l'utilisateur d'un token JWT.
-     * 
+     *
      * @param token Le token JWT
      * @return L'email de l'utilisateur
      */
     public String getEmailFromToken(String token) {
-        return validateToken(token).getSubject();
+        return verifier(token).email();
     }
 
     /**
      * Extrait le rôle de l'utilisateur d'un token JWT.
-     * 
+     *
      * @param token Le token JWT
      * @return Le rôle de l'utilisateur (ADMIN, MEDECIN, PATIENT)
      */
     public String getRoleFromToken(String token) {
-        return validateToken(token).get("role", String.class);
+        return verifier(token).role();
     }
 
     /**
      * Vérifie si un token est expiré.
-     * 
+     *
      * @param token Le token JWT
      * @return true si le token est expiré, false sinon
      */
     public boolean isTokenExpired(String token) {
         try {
-            Claims claims = validateToken(token);
-            return claims.getExpiration().before(new java.util.Date());
+            return verifier(token).expiration() <= System.currentTimeMillis();
         } catch (Exception e) {
             return true;
         }
@@ -0,0 +1,172 @@
+package com.consultation.security;
+
+import com.consultation.config.Parametres;
+import com.consultation.metrics.ProfilSql;
+import com.consultation.metrics.jfr.BCryptEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.mindrot.jbcrypt.BCrypt;
+
+/**
+ * Hachage et vérification des mots de passe (BCrypt).
+ *
+ * Les opérations coûteuses en CPU (connexion, inscription) sont exécutées sur
+ * un pool dédié d'autant de threads que de cœurs, avec une file d'attente
+ * bornée : quand elle est pleine, executer() lève RejectedExecutionException
+ * et l'appelant répond immédiatement 503.
+ *
+ * Les hachages en masse (import de patients) passent par hacherEnMasse(), sur
+ * un second pool de moitié moins de threads : ils n'occupent ni les threads ni
+ * la file des connexions, et laissent au moins la moitié des cœurs à celles-ci.
+ * Quand sa file est pleine, le hachage est fait par le thread appelant, ce qui
+ * ralentit l'import au lieu de le faire échouer.
+ *
+ * Paramètres : consultation.bcrypt.cout (défaut 10),
+ * consultation.bcrypt.file (taille de la file, défaut 256) et
+ * consultation.bcrypt.masse.threads (défaut : moitié des cœurs, au moins 1).
+ */
+@ApplicationScoped
+public class MotDePasseService {
+
+    private final int cout = Parametres.entier("consultation.bcrypt.cout", 10);
+    private final int capaciteFile = Parametres.entier("consultation.bcrypt.file", 256);
+
+    @Resource
+    private ManagedThreadFactory threadFactory;
+
+    private ThreadPoolExecutor executor;
+
+    private ThreadPoolExecutor executorMasse;
+
+    private final LongAdder rejets = new LongAdder();
+    private final LongAdder operations = new LongAdder();
+    private final LongAdder dureeTotaleNanos = new LongAdder();
+
+    @PostConstruct
+    void demarrer() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capaciteFile), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        int threadsMasse = Parametres.entier("consultation.bcrypt.masse.threads", Math.max(1, threads / 2));
+        executorMasse = new ThreadPoolExecutor(threadsMasse, threadsMasse, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capaciteFile), threadFactory, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    void arreter() {
+        executor.shutdown();
+        executorMasse.shutdown();
+    }
+
+    /**
+     * Exécute sur le pool dédié la suite d'une requête HTTP suspendue. Le
+     * contexte ProfilSql de la requête est transporté sur le thread du pool
+     * pendant la tâche et retiré du thread appelant, qui ne la traite plus.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException si la file est pleine
+     */
+    public <T> CompletionStage<T> executer(Supplier<T> tache) {
+        ProfilSql.Requete requete = ProfilSql.courante();
+        CompletableFuture<T> resultat;
+        try {
+            resultat = CompletableFuture.supplyAsync(() -> {
+                ProfilSql.Requete precedente = ProfilSql.attacher(requete);
+                try {
+                    return tache.get();
+                } finally {
+                    ProfilSql.restaurer(precedente);
+                }
+            }, executor);
+        } catch (java.util.concurrent.RejectedExecutionException e) {
+            rejets.increment();
+            throw e;
+        }
+        ProfilSql.detacher();
+        return resultat;
+    }
+
+    /**
+     * Hache un mot de passe sur le pool des traitements en masse, ou sur le
+     * thread appelant si sa file est pleine.
+     */
+    public CompletionStage<String> hacherEnMasse(String motDePasse) {
+        return CompletableFuture.supplyAsync(() -> hacher(motDePasse), executorMasse);
+    }
+
+    /**
+     * Hache un mot de passe en clair avec le coût configuré.
+     */
+    public String hacher(String motDePasse) {
+        long debut = System.nanoTime();
+        BCryptEvent event = new BCryptEvent();
+        event.begin();
+        try {
+            return BCrypt.hashpw(motDePasse, BCrypt.gensalt(cout));
+        } finally {
+            mesurer(debut, event, "hachage");
+        }
+    }
+
+    /**
+     * Vérifie un mot de passe en clair contre un hash BCrypt.
+     */
+    public boolean verifier(String motDePasse, String hash) {
+        long debut = System.nanoTime();
+        BCryptEvent event = new BCryptEvent();
+        event.begin();
+        try {
+            return BCrypt.checkpw(motDePasse, hash);
+        } finally {
+            mesurer(debut, event, "verification");
+        }
+    }
+
+    private void mesurer(long debut, BCryptEvent event, String operation) {
+        operations.increment();
+        dureeTotaleNanos.add(System.nanoTime() - debut);
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.cout = cout;
+            event.commit();
+        }
+    }
+
+    public int getThreads() {
+        return executor.getMaximumPoolSize();
+    }
+
+    public int getThreadsActifs() {
+        return executor.getActiveCount();
+    }
+
+    public int getTailleFile() {
+        return executor.getQueue().size();
+    }
+
+    public int getCapaciteFile() {
+        return capaciteFile;
+    }
+
+    public long getRejets() {
+        return rejets.sum();
+    }
+
+    public long getOperations() {
+        return operations.sum();
+    }
+
+    public long getDureeTotaleNanos() {
+        return dureeTotaleNanos.sum();
+    }
+}
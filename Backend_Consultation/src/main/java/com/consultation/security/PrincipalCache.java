@@ -0,0 +1,110 @@
+package com.consultation.security;
+
+import com.consultation.events.UtilisateurModifie;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache borné des identités résolues (PrincipalResolu), indexé par email.
+ *
+ * Une identité absente est lue en une seule requête (utilisateur, patient et
+ * médecin joints). Le cache est invalidé par les événements UtilisateurModifie
+ * une fois la transaction terminée. C'est une ConcurrentHashMap lue sans
+ * verrou ; au-delà de sa taille, un seul thread retire des entrées
+ * quelconques jusqu'à 90 % (elles seront relues à la demande).
+ */
+@ApplicationScoped
+public class PrincipalCache {
+
+    /**
+     * Nombre maximal d'identités gardées en cache.
+     */
+    private static final int TAILLE_CACHE = 10_000;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final ConcurrentHashMap<String, PrincipalResolu> cache = new ConcurrentHashMap<>(1024);
+
+    private final AtomicBoolean nettoyageEnCours = new AtomicBoolean();
+
+    /**
+     * Incrémenté à chaque invalidation : une identité lue avant une invalidation
+     * n'est pas mise en cache.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Retourne l'identité de l'utilisateur portant cet email, ou null s'il n'existe pas.
+     */
+    public PrincipalResolu resoudre(String email) {
+        PrincipalResolu enCache = cache.get(email);
+        if (enCache != null) {
+            return enCache;
+        }
+        long generationLecture = generation.get();
+        List<PrincipalResolu> resultat = em.createQuery(
+                "SELECT new com.consultation.security.PrincipalResolu(u.id, u.email, u.role, p.id, m.id, u.actif) " +
+                        "FROM Utilisateur u " +
+                        "LEFT JOIN Patient p ON p.utilisateur = u " +
+                        "LEFT JOIN Medecin m ON m.utilisateur = u " +
+                        "WHERE u.email = :email",
+                PrincipalResolu.class)
+                .setParameter("email", email)
+                .getResultList();
+        if (resultat.isEmpty()) {
+            return null;
+        }
+        PrincipalResolu principal = resultat.get(0);
+        if (generation.get() == generationLecture) {
+            cache.put(email, principal);
+            // Une invalidation passée entre la vérification et l'ajout l'annule
+            if (generation.get() != generationLecture) {
+                cache.remove(email, principal);
+            }
+            if (cache.size() > TAILLE_CACHE) {
+                nettoyer();
+            }
+        }
+        return principal;
+    }
+
+    /**
+     * Ramène le cache à 90 % de sa taille maximale ; un seul thread à la fois.
+     */
+    private void nettoyer() {
+        if (!nettoyageEnCours.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Iterator<String> emails = cache.keySet().iterator();
+            while (cache.size() > TAILLE_CACHE * 9 / 10 && emails.hasNext()) {
+                emails.next();
+                emails.remove();
+            }
+        } finally {
+            nettoyageEnCours.set(false);
+        }
+    }
+
+    /**
+     * Retire du cache l'identité d'un utilisateur.
+     */
+    public void invalider(Long utilisateurId) {
+        // Incrémenté avant le retrait : une lecture concurrente ne remet pas l'identité
+        generation.incrementAndGet();
+        cache.values().removeIf(p -> p.utilisateurId().equals(utilisateurId));
+    }
+
+    void surUtilisateurModifie(@Observes(during = TransactionPhase.AFTER_COMPLETION) UtilisateurModifie evenement) {
+        invalider(evenement.utilisateurId());
+    }
+}
@@ -0,0 +1,12 @@
+package com.consultation.security;
+
+import com.consultation.models.Role;
+
+/**
+ * Identité de l'utilisateur authentifié, attachée à la requête par
+ * JWTAuthFilter (propriété "principal"). patientId et medecinId sont null
+ * lorsque l'utilisateur n'a pas ce profil.
+ */
+public record PrincipalResolu(Long utilisateurId, String email, Role role, Long patientId, Long medecinId,
+        boolean actif) {
+}
@@ -0,0 +1,55 @@
+package com.consultation.services;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admission des demandes de réservation, par créneau.
+ *
+ * Une seule demande à la fois peut aller jusqu'à la base pour un créneau donné.
+ * Les demandes concurrentes sur le même créneau sont refusées immédiatement,
+ * sans ouvrir de transaction ni attendre un verrou MySQL. Le jeu de créneaux
+ * en cours est une ConcurrentHashMap (verrous répartis par segment) : deux
+ * créneaux différents ne se gênent pas.
+ */
+@ApplicationScoped
+public class AdmissionReservations {
+
+    private final Set<Long> enCours = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder admises = new LongAdder();
+    private final LongAdder refusees = new LongAdder();
+
+    /**
+     * Tente de prendre la main sur un créneau.
+     *
+     * @return true si la demande peut continuer ; elle doit alors appeler
+     *         sortir() une fois la transaction terminée
+     */
+    public boolean entrer(Long creneauId) {
+        if (enCours.add(creneauId)) {
+            admises.increment();
+            return true;
+        }
+        refusees.increment();
+        return false;
+    }
+
+    public void sortir(Long creneauId) {
+        enCours.remove(creneauId);
+    }
+
+    public long getAdmises() {
+        return admises.sum();
+    }
+
+    public long getRefusees() {
+        return refusees.sum();
+    }
+
+    public int getEnCours() {
+        return enCours.size();
+    }
+}
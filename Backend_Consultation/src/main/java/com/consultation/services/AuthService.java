@@ -1,21 +1,22 @@
 package com.consultation.services;
 
 import jakarta.persistence.PersistenceContext;
+import com.consultation.metrics.Chronometre;
 import com.consultation.models.Service;
 import com.consultation.models.Utilisateur;
 import com.consultation.models.Role;
+import com.consultation.security.JWTUtil;
+import com.consultation.security.MotDePasseService;
+import com.consultation.security.PrincipalCache;
+import com.consultation.security.PrincipalResolu;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.NoResultException;
 import jakarta.transaction.Transactional;
-import org.mindrot.jbcrypt.BCrypt;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 
 import java.util.Date;
-import javax.crypto.spec.SecretKeySpec;
-import java.nio.charset.StandardCharsets;
-import java.security.Key;
 import java.time.LocalDate;
 
 @ApplicationScoped
@@ -31,6 +32,10 @@ public class AuthService {
     private PatientService patientService;
     @jakarta.inject.Inject
     private MedecinService medecinService;
+    @jakarta.inject.Inject
+    private PrincipalCache principalCache;
+    @jakarta.inject.Inject
+    private MotDePasseService motDePasseService;
 
     // Setters pour injection manuelle
     public void setPatientService(PatientService patientService) {
@@ -41,12 +46,7 @@ public class AuthService {
         this.medecinService = medecinService;
     }
 
-    private static final String SECRET_KEY = "super-secret-key-very-long-and-secure-123"; // À sécuriser en prod
-
-    private Key getSigningKey() {
-        return new SecretKeySpec(SECRET_KEY.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
-    }
-
+    @Chronometre
     @Transactional
     public Utilisateur register(
             Utilisateur user,
@@ -64,7 +64,7 @@ public class AuthService {
             throw new IllegalArgumentException("Email déjà utilisé");
         }
         // Hash du mot de passe
-        String hash = BCrypt.hashpw(user.getMotDePasse(), BCrypt.gensalt());
+        String hash = motDePasseService.hacher(user.getMotDePasse());
         user.setMotDePasse(hash);
         em.persist(user);
         em.flush();
@@ -85,9 +85,10 @@ public class AuthService {
         return user;
     }
 
+    @Chronometre
     public java.util.Map<String, Object> login(String email, String motDePasse) {
         Utilisateur user = findByEmail(email);
-        if (user == null || !BCrypt.checkpw(motDePasse, user.getMotDePasse())) {
+        if (user == null || !motDePasseService.verifier(motDePasse, user.getMotDePasse())) {
             throw new SecurityException("Email ou mot de passe incorrect");
         }
         // Génération du JWT
@@ -96,7 +97,7 @@ public class AuthService {
                 .claim("role", user.getRole().name())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + 86400000)) // 24h
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(JWTUtil.SIGNING_KEY, SignatureAlgorithm.HS256)
                 .compact();
         // Masquer le mot de passe
         user.setMotDePasse(null);
@@ -104,17 +105,13 @@ public class AuthService {
         result.put("token", token);
         result.put("user", user);
 
-        // Ajouter patientId ou medecinId selon le rôle
-        if (user.getRole() == Role.PATIENT) {
-            com.consultation.models.Patient patient = patientService.getByUtilisateurId(user.getId());
-            if (patient != null) {
-                result.put("patientId", patient.getId());
-            }
-        } else if (user.getRole() == Role.MEDECIN) {
-            com.consultation.models.Medecin medecin = medecinService.findByUtilisateurId(user.getId());
-            if (medecin != null) {
-                result.put("medecinId", medecin.getId());
-            }
+        // Ajouter patientId ou medecinId selon le rôle (identité mise en cache
+        // pour les requêtes authentifiées suivantes)
+        PrincipalResolu principal = principalCache.resoudre(user.getEmail());
+        if (principal != null && principal.patientId() != null) {
+            result.put("patientId", principal.patientId());
+        } else if (principal != null && principal.medecinId() != null) {
+            result.put("medecinId", principal.medecinId());
         }
 
         return result;
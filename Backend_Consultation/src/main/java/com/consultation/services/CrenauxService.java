@@ -1,28 +1,67 @@
 package com.consultation.services;
 
+import com.consultation.cache.CreneauDisponible;
+import com.consultation.cache.CreneauxDisponiblesIndex;
+import com.consultation.events.CreneauxModifies;
+import com.consultation.metrics.Chronometre;
 import com.consultation.models.Crenaux;
 import com.consultation.models.StatutCrenau;
 import com.consultation.models.Medecin;
+import jakarta.annotation.Resource;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import javax.sql.DataSource;
 
 @ApplicationScoped
 public class CrenauxService {
 
+    /**
+     * Nombre de créneaux par INSERT multi-lignes lors de la génération.
+     */
+    private static final int TAILLE_LOT = 500;
+
     @PersistenceContext
     private EntityManager em;
 
+    @Resource(lookup = "jdbc/consultationDb")
+    private DataSource dataSource;
+
+    @Inject
+    private CreneauxDisponiblesIndex creneauxDisponiblesIndex;
+
+    @Inject
+    private Event<CreneauxModifies> creneauxModifies;
+
     /**
-     * Retourne les créneaux d'un médecin avec filtres optionnels
+     * Retourne les créneaux d'un médecin avec filtres optionnels.
+     * Les créneaux LIBRE sont servis par l'index en mémoire.
      */
     public List<Crenaux> getCrenauxMedecin(Long medecinId, String date, String statut) {
+        if (statut != null && StatutCrenau.LIBRE.name().equalsIgnoreCase(statut)) {
+            LocalDate jour = date != null && !date.isEmpty() ? LocalDate.parse(date) : null;
+            return getCreneauxDisponibles(medecinId, jour).stream().map(c -> {
+                Crenaux creneau = new Crenaux(null, c.dateDay(), c.heureDebut(), c.heureFin(), StatutCrenau.LIBRE);
+                creneau.setId(c.id());
+                return creneau;
+            }).toList();
+        }
+
         StringBuilder jpql = new StringBuilder("SELECT c FROM Crenaux c WHERE c.medecin.id = :medecinId");
         
         if (date != null && !date.isEmpty()) {
@@ -50,8 +89,18 @@ public class CrenauxService {
     }
 
     /**
-     * Génère des créneaux pour un médecin selon la configuration fournie
+     * Retourne les créneaux LIBRE d'un médecin (toutes dates si date est null)
+     * depuis l'index en mémoire, sans accès à la base une fois l'index chargé.
+     */
+    public List<CreneauDisponible> getCreneauxDisponibles(Long medecinId, LocalDate date) {
+        return creneauxDisponiblesIndex.getCreneauxLibres(medecinId, date);
+    }
+
+    /**
+     * Génère des créneaux pour un médecin selon la configuration fournie.
+     * Seuls les créneaux absents en base sont insérés (voir insererCreneauxManquants).
      */
+    @Chronometre
     @Transactional
     public List<Crenaux> genererCreneaux(Long medecinId, Map<String, Object> config) {
         Medecin medecin = em.find(Medecin.class, medecinId);
@@ -77,7 +126,22 @@ public class CrenauxService {
             }
         }
 
-        List<Crenaux> crenauxGeneres = new ArrayList<>();
+        List<Crenaux> candidats = construireCandidats(medecin, dateDebut, dateFin, heureDebut, heureFin,
+                dureeSeance, pauseDebut, pauseFin);
+        return insererCreneauxManquants(medecin, dateDebut, dateFin, candidats);
+    }
+
+    /**
+     * Découpe la plage [dateDebut, dateFin] en créneaux (non persistés) de
+     * dureeSeance minutes entre heureDebut et heureFin, dimanches et pause
+     * exclus.
+     *
+     * @param pauseDebut début de la pause, ou null
+     * @param pauseFin   fin de la pause, ou null
+     */
+    public static List<Crenaux> construireCandidats(Medecin medecin, LocalDate dateDebut, LocalDate dateFin,
+            LocalTime heureDebut, LocalTime heureFin, int dureeSeance, LocalTime pauseDebut, LocalTime pauseFin) {
+        List<Crenaux> candidats = new ArrayList<>();
         
         // Générer pour chaque jour
         LocalDate currentDate = dateDebut;
@@ -96,26 +160,7 @@ public class CrenauxService {
                     }
                     
                     if (!chercheauPause && !finCreneau.isAfter(heureFin)) {
-                        // Vérifier que le créneau n'existe pas déjà
-                        long existant = em.createQuery(
-                            "SELECT COUNT(c) FROM Crenaux c WHERE c.medecin.id = :medecinId " +
-                            "AND c.dateDay = :date AND c.heureDebut = :heure", Long.class)
-                            .setParameter("medecinId", medecinId)
-                            .setParameter("date", currentDate)
-                            .setParameter("heure", currentHeure)
-                            .getSingleResult();
-                        
-                        if (existant == 0) {
-                            Crenaux creneau = new Crenaux();
-                            creneau.setMedecin(medecin);
-                            creneau.setDateDay(currentDate);
-                            creneau.setHeureDebut(currentHeure);
-                            creneau.setHeureFin(finCreneau);
-                            creneau.setStatut(StatutCrenau.LIBRE);
-                            
-                            em.persist(creneau);
-                            crenauxGeneres.add(creneau);
-                        }
+                        candidats.add(new Crenaux(medecin, currentDate, currentHeure, finCreneau));
                     }
                     
                     // Passer à l'heure suivante, en sautant la pause si nécessaire
@@ -127,8 +172,85 @@ public class CrenauxService {
             }
             currentDate = currentDate.plusDays(1);
         }
-        
-        return crenauxGeneres;
+        return candidats;
+    }
+
+    /**
+     * Insère en base les créneaux candidats qui n'existent pas encore pour ce
+     * médecin (même date et même heure de début).
+     * Les créneaux existants de la plage sont lus en une seule requête, puis les
+     * manquants sont écrits par INSERT multi-lignes de TAILLE_LOT créneaux.
+     *
+     * @param medecin   le médecin propriétaire des créneaux
+     * @param dateDebut première date couverte par les candidats
+     * @param dateFin   dernière date couverte par les candidats
+     * @param candidats créneaux à créer (non persistés)
+     * @return les créneaux réellement insérés, avec leur id
+     */
+    @Transactional
+    public List<Crenaux> insererCreneauxManquants(Medecin medecin, LocalDate dateDebut, LocalDate dateFin,
+            List<Crenaux> candidats) {
+        Set<String> existants = new HashSet<>();
+        for (Object[] row : em.createQuery(
+                "SELECT c.dateDay, c.heureDebut FROM Crenaux c WHERE c.medecin.id = :medecinId " +
+                "AND c.dateDay BETWEEN :dateDebut AND :dateFin", Object[].class)
+                .setParameter("medecinId", medecin.getId())
+                .setParameter("dateDebut", dateDebut)
+                .setParameter("dateFin", dateFin)
+                .getResultList()) {
+            existants.add(row[0] + "T" + row[1]);
+        }
+
+        List<Crenaux> aInserer = new ArrayList<>();
+        for (Crenaux c : candidats) {
+            if (existants.add(c.getDateDay() + "T" + c.getHeureDebut())) {
+                aInserer.add(c);
+            }
+        }
+        if (aInserer.isEmpty()) {
+            return aInserer;
+        }
+
+        // Les écritures JPA en attente doivent précéder les INSERT JDBC
+        em.flush();
+        try (Connection connection = dataSource.getConnection()) {
+            for (int debut = 0; debut < aInserer.size(); debut += TAILLE_LOT) {
+                insererLot(connection, medecin.getId(),
+                        aInserer.subList(debut, Math.min(debut + TAILLE_LOT, aInserer.size())));
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Erreur lors de l'insertion des créneaux : " + e.getMessage(), e);
+        }
+
+        creneauxModifies.fire(CreneauxModifies.creation(medecin.getId(), aInserer));
+        return aInserer;
+    }
+
+    private void insererLot(Connection connection, Long medecinId, List<Crenaux> lot) throws SQLException {
+        StringBuilder sql = new StringBuilder(
+                "INSERT INTO crenaux (id_medecin, date_day, heure_debut, heure_fin, statut) VALUES ");
+        for (int i = 0; i < lot.size(); i++) {
+            sql.append(i == 0 ? "(?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?)");
+        }
+        try (PreparedStatement ps = connection.prepareStatement(sql.toString(),
+                Statement.RETURN_GENERATED_KEYS)) {
+            int index = 1;
+            for (Crenaux c : lot) {
+                ps.setLong(index++, medecinId);
+                ps.setDate(index++, java.sql.Date.valueOf(c.getDateDay()));
+                ps.setTime(index++, java.sql.Time.valueOf(c.getHeureDebut()));
+                ps.setTime(index++, java.sql.Time.valueOf(c.getHeureFin()));
+                ps.setString(index++, c.getStatut().name());
+            }
+            ps.executeUpdate();
+            try (ResultSet cles = ps.getGeneratedKeys()) {
+                for (Crenaux c : lot) {
+                    if (cles.next()) {
+                        c.setId(cles.getLong(1));
+                    }
+                }
+            }
+        }
     }
 
     /**
@@ -142,9 +264,11 @@ public class CrenauxService {
         }
         
         StatutCrenau statut = StatutCrenau.valueOf(nouveauStatut.toUpperCase());
+        StatutCrenau ancienStatut = creneau.getStatut();
         creneau.setStatut(statut);
         
         em.merge(creneau);
+        creneauxModifies.fire(CreneauxModifies.changement(creneau, ancienStatut));
         return creneau;
     }
 }
\ No newline at end of file
@@ -0,0 +1,177 @@
+package com.consultation.services;
+
+import com.consultation.events.CreneauxModifies;
+import com.consultation.mapper.CustomObjectMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Diffusion en temps réel (Server-Sent Events) des changements de statut des
+ * créneaux d'un médecin.
+ *
+ * Chaque abonné dispose d'une file bornée de TAILLE_TAMPON événements, vidée
+ * par des envois chaînés lancés depuis le pool du conteneur, sans bloquer ses
+ * threads. Un client trop lent dont la file est pleine est déconnecté : il se
+ * reconnecte et recharge les créneaux disponibles.
+ */
+@ApplicationScoped
+public class DiffusionCreneauxService {
+
+    /**
+     * Nombre maximal d'événements en attente par abonné.
+     */
+    static final int TAILLE_TAMPON = 64;
+
+    /**
+     * Contenu d'un événement "creneau" envoyé aux abonnés.
+     */
+    public record DeltaCreneau(Long id, String dateDay, String heureDebut, String statut) {
+    }
+
+    private static final ObjectMapper MAPPER = CustomObjectMapper.create();
+
+    @Resource
+    private ManagedExecutorService executor;
+
+    private final ConcurrentHashMap<Long, Set<Abonne>> abonnes = new ConcurrentHashMap<>();
+
+    /**
+     * Abonne un client aux changements de créneaux d'un médecin.
+     */
+    public void abonner(Long medecinId, SseEventSink sink, Sse sse) {
+        Abonne abonne = new Abonne(medecinId, sink, sse);
+        abonnes.compute(medecinId, (id, set) -> {
+            Set<Abonne> resultat = set != null ? set : ConcurrentHashMap.newKeySet();
+            resultat.add(abonne);
+            return resultat;
+        });
+        abonne.publier(sse.newEventBuilder().comment("abonnement medecin " + medecinId).build());
+    }
+
+    void surCreneauxModifies(@Observes(during = TransactionPhase.AFTER_SUCCESS) CreneauxModifies evenement) {
+        Set<Abonne> destinataires = abonnes.get(evenement.medecinId());
+        if (destinataires == null || destinataires.isEmpty()) {
+            return;
+        }
+        if (evenement.medecinSupprime()) {
+            destinataires.forEach(Abonne::fermer);
+            return;
+        }
+        for (CreneauxModifies.CreneauModifie c : evenement.creneaux()) {
+            String json;
+            try {
+                json = MAPPER.writeValueAsString(new DeltaCreneau(c.id(), c.dateDay().toString(),
+                        c.heureDebut().toString(), c.nouveauStatut().name()));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+            for (Abonne abonne : destinataires) {
+                abonne.publier(abonne.sse.newEventBuilder()
+                        .name("creneau")
+                        .id(String.valueOf(c.id()))
+                        .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                        .data(String.class, json)
+                        .build());
+            }
+        }
+    }
+
+    private void retirer(Abonne abonne) {
+        abonnes.computeIfPresent(abonne.medecinId, (id, set) -> {
+            set.remove(abonne);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    /**
+     * Client abonné : file bornée d'événements et envoi séquentiel.
+     */
+    private final class Abonne {
+        private final Long medecinId;
+        private final SseEventSink sink;
+        private final Sse sse;
+        private final BlockingQueue<OutboundSseEvent> file = new ArrayBlockingQueue<>(TAILLE_TAMPON);
+        private final AtomicBoolean envoiEnCours = new AtomicBoolean();
+
+        Abonne(Long medecinId, SseEventSink sink, Sse sse) {
+            this.medecinId = medecinId;
+            this.sink = sink;
+            this.sse = sse;
+        }
+
+        void publier(OutboundSseEvent evenement) {
+            if (sink.isClosed() || !file.offer(evenement)) {
+                fermer();
+                return;
+            }
+            if (envoiEnCours.compareAndSet(false, true)) {
+                executor.execute(this::vider);
+            }
+        }
+
+        /**
+         * Envoie les événements en file l'un après l'autre sans attendre le
+         * client : un envoi encore en cours reprend la suite à sa fin, depuis
+         * le thread qui le termine. Un thread du pool n'est donc jamais bloqué
+         * par un abonné lent.
+         */
+        private void vider() {
+            while (true) {
+                OutboundSseEvent evenement = file.poll();
+                if (evenement == null) {
+                    envoiEnCours.set(false);
+                    if (file.isEmpty() || !envoiEnCours.compareAndSet(false, true)) {
+                        return;
+                    }
+                    continue;
+                }
+                CompletableFuture<?> envoi;
+                try {
+                    envoi = sink.send(evenement).toCompletableFuture();
+                } catch (RuntimeException e) {
+                    fermer();
+                    return;
+                }
+                if (!envoi.isDone()) {
+                    envoi.whenComplete((r, erreur) -> {
+                        if (erreur != null) {
+                            fermer();
+                        } else {
+                            vider();
+                        }
+                    });
+                    return;
+                }
+                if (envoi.isCompletedExceptionally()) {
+                    fermer();
+                    return;
+                }
+            }
+        }
+
+        void fermer() {
+            retirer(this);
+            file.clear();
+            try {
+                sink.close();
+            } catch (Exception e) {
+                // connexion déjà fermée côté client
+            }
+        }
+    }
+}
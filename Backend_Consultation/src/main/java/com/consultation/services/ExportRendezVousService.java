@@ -0,0 +1,203 @@
+package com.consultation.services;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import javax.sql.DataSource;
+
+/**
+ * Export des rendez-vous d'une période pour les analyses, en CSV ou NDJSON.
+ *
+ * La requête passe directement par JDBC, sans contexte de persistance : le
+ * curseur est en avant seulement et lecture seule, avec fetchSize
+ * Integer.MIN_VALUE pour que le pilote MySQL transmette les lignes une à une.
+ * Chaque ligne est écrite dès sa lecture ; la mémoire utilisée ne dépend pas
+ * du nombre de lignes exportées.
+ */
+@ApplicationScoped
+public class ExportRendezVousService {
+
+    /**
+     * Lignes écrites entre deux flush de la sortie.
+     */
+    private static final int LIGNES_PAR_FLUSH = 1000;
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private static final String COLONNES = "SELECT r.id AS rendezVousId, r.statut_rdv AS statutRdv, r.motif, " +
+            "r.date_creation AS dateCreation, c.id AS creneauId, c.date_day AS date, " +
+            "c.heure_debut AS heureDebut, c.heure_fin AS heureFin, c.statut AS statutCreneau, " +
+            "p.id_utilisateur AS patientId, pu.nom AS patientNom, pu.prenom AS patientPrenom, " +
+            "pu.email AS patientEmail, m.id_utilisateur AS medecinId, mu.nom AS medecinNom, " +
+            "mu.prenom AS medecinPrenom, m.specialite, s.nom AS service ";
+
+    private static final String JOINTURES_MEDECIN = "JOIN medecin m ON m.id_utilisateur = c.id_medecin " +
+            "JOIN utilisateur mu ON mu.id = m.id_utilisateur " +
+            "LEFT JOIN service s ON s.id = m.id_service ";
+
+    private static final String PERIODE_ET_ORDRE = "WHERE c.date_day BETWEEN ? AND ? " +
+            "ORDER BY c.date_day, c.heure_debut, c.id";
+
+    /**
+     * Rendez-vous seulement.
+     */
+    private static final String SQL_RENDEZ_VOUS = COLONNES +
+            "FROM rendez_vous r JOIN crenaux c ON c.id = r.id_creneau " +
+            "JOIN patient p ON p.id_utilisateur = r.id_patient " +
+            "JOIN utilisateur pu ON pu.id = p.id_utilisateur " +
+            JOINTURES_MEDECIN + PERIODE_ET_ORDRE;
+
+    /**
+     * Tous les créneaux, avec leur rendez-vous s'il existe.
+     */
+    private static final String SQL_CRENEAUX = COLONNES +
+            "FROM crenaux c LEFT JOIN rendez_vous r ON r.id_creneau = c.id " +
+            "LEFT JOIN patient p ON p.id_utilisateur = r.id_patient " +
+            "LEFT JOIN utilisateur pu ON pu.id = p.id_utilisateur " +
+            JOINTURES_MEDECIN + PERIODE_ET_ORDRE;
+
+    /**
+     * Format de l'export.
+     */
+    public enum Format {
+        /**
+         * En-tête puis une ligne par rendez-vous, séparateur ",".
+         */
+        CSV,
+        /**
+         * Un objet JSON par ligne.
+         */
+        NDJSON
+    }
+
+    @Resource(lookup = "jdbc/consultationDb")
+    private DataSource dataSource;
+
+    /**
+     * Écrit les rendez-vous dont le créneau tombe entre debut et fin (inclus).
+     *
+     * @param creneauxLibres true pour exporter tous les créneaux de la période,
+     *                       y compris ceux sans rendez-vous (colonnes du
+     *                       rendez-vous et du patient vides)
+     */
+    public void exporter(LocalDate debut, LocalDate fin, Format format, boolean creneauxLibres, OutputStream sortie)
+            throws IOException {
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement ps = connection.prepareStatement(creneauxLibres ? SQL_CRENEAUX : SQL_RENDEZ_VOUS,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(Integer.MIN_VALUE);
+            ps.setDate(1, java.sql.Date.valueOf(debut));
+            ps.setDate(2, java.sql.Date.valueOf(fin));
+            try (ResultSet rs = ps.executeQuery()) {
+                if (format == Format.CSV) {
+                    ecrireCsv(rs, sortie);
+                } else {
+                    ecrireNdjson(rs, sortie);
+                }
+            }
+        } catch (SQLException e) {
+            throw new IOException("Export des rendez-vous interrompu : " + e.getMessage(), e);
+        }
+    }
+
+    private static void ecrireCsv(ResultSet rs, OutputStream sortie) throws SQLException, IOException {
+        ResultSetMetaData meta = rs.getMetaData();
+        int colonnes = meta.getColumnCount();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(sortie, StandardCharsets.UTF_8), 16 * 1024);
+        for (int i = 1; i <= colonnes; i++) {
+            if (i > 1) {
+                writer.write(',');
+            }
+            writer.write(meta.getColumnLabel(i));
+        }
+        writer.write('\n');
+
+        int lignes = 0;
+        while (rs.next()) {
+            for (int i = 1; i <= colonnes; i++) {
+                if (i > 1) {
+                    writer.write(',');
+                }
+                String valeur = rs.getString(i);
+                if (valeur != null) {
+                    ecrireChampCsv(writer, valeur);
+                }
+            }
+            writer.write('\n');
+            if (++lignes % LIGNES_PAR_FLUSH == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Champ CSV, entre guillemets s'il contient un séparateur, un guillemet ou
+     * un retour à la ligne (les motifs sont du texte libre).
+     */
+    private static void ecrireChampCsv(Writer writer, String valeur) throws IOException {
+        boolean guillemets = false;
+        for (int i = 0; i < valeur.length() && !guillemets; i++) {
+            char c = valeur.charAt(i);
+            guillemets = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!guillemets) {
+            writer.write(valeur);
+            return;
+        }
+        writer.write('"');
+        writer.write(valeur.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static void ecrireNdjson(ResultSet rs, OutputStream sortie) throws SQLException, IOException {
+        ResultSetMetaData meta = rs.getMetaData();
+        int colonnes = meta.getColumnCount();
+        String[] noms = new String[colonnes + 1];
+        boolean[] numeriques = new boolean[colonnes + 1];
+        for (int i = 1; i <= colonnes; i++) {
+            noms[i] = meta.getColumnLabel(i);
+            numeriques[i] = meta.getColumnType(i) == Types.BIGINT || meta.getColumnType(i) == Types.INTEGER;
+        }
+
+        try (JsonGenerator generateur = JSON.createGenerator(sortie)) {
+            generateur.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generateur.setRootValueSeparator(null);
+            int lignes = 0;
+            while (rs.next()) {
+                generateur.writeStartObject();
+                for (int i = 1; i <= colonnes; i++) {
+                    if (numeriques[i]) {
+                        long valeur = rs.getLong(i);
+                        if (rs.wasNull()) {
+                            generateur.writeNullField(noms[i]);
+                        } else {
+                            generateur.writeNumberField(noms[i], valeur);
+                        }
+                    } else {
+                        generateur.writeStringField(noms[i], rs.getString(i));
+                    }
+                }
+                generateur.writeEndObject();
+                generateur.writeRaw('\n');
+                if (++lignes % LIGNES_PAR_FLUSH == 0) {
+                    generateur.flush();
+                }
+            }
+        }
+    }
+}
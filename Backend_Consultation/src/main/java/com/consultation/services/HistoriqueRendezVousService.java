@@ -0,0 +1,140 @@
+package com.consultation.services;
+
+import com.consultation.dto.CurseurRendezVous;
+import com.consultation.dto.LigneRendezVous;
+import com.consultation.dto.PageRendezVous;
+import com.consultation.mapper.CustomObjectMapper;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+
+/**
+ * Historique des rendez-vous d'un patient ou d'un médecin, du plus récent au
+ * plus ancien.
+ *
+ * Les pages sont découpées par curseur (keyset) sur (dateDay, heureDebut, id) :
+ * chaque page reprend strictement après la dernière ligne de la précédente,
+ * sans OFFSET. L'export NDJSON parcourt le résultat avec un curseur serveur et
+ * écrit les lignes au fil de l'eau, en mémoire constante.
+ */
+@ApplicationScoped
+public class HistoriqueRendezVousService {
+
+    /**
+     * Taille de page maximale acceptée.
+     */
+    public static final int TAILLE_MAX = 200;
+
+    /**
+     * Nombre de lignes écrites entre deux flush de l'export.
+     */
+    private static final int LIGNES_PAR_FLUSH = 500;
+
+    private static final String SELECTION = "SELECT new com.consultation.dto.LigneRendezVous(r.id, r.motif, " +
+            "r.statutRdv, r.dateCreation, c.id, c.dateDay, c.heureDebut, c.heureFin, p.id, pu.nom, pu.prenom, " +
+            "m.id, mu.nom, mu.prenom) " +
+            "FROM RendezVous r JOIN r.creneau c JOIN c.medecin m JOIN m.utilisateur mu " +
+            "JOIN r.patient p JOIN p.utilisateur pu ";
+
+    private static final String APRES_CURSEUR = "AND (c.dateDay < :dateDay OR (c.dateDay = :dateDay AND " +
+            "(c.heureDebut < :heureDebut OR (c.heureDebut = :heureDebut AND r.id < :id)))) ";
+
+    private static final String ORDRE = "ORDER BY c.dateDay DESC, c.heureDebut DESC, r.id DESC";
+
+    private static final ObjectWriter WRITER = CustomObjectMapper.create()
+            .writerFor(LigneRendezVous.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    /**
+     * Filtre de l'historique : rendez-vous d'un patient ou d'un médecin.
+     */
+    public enum Filtre {
+        PATIENT("WHERE p.id = :proprietaire "),
+        MEDECIN("WHERE m.id = :proprietaire ");
+
+        private final String clause;
+
+        Filtre(String clause) {
+            this.clause = clause;
+        }
+    }
+
+    @PersistenceContext
+    private EntityManager em;
+
+    /**
+     * Retourne une page d'historique.
+     *
+     * @param curseur jeton renvoyé par la page précédente, null pour la première
+     * @param taille  nombre de lignes (1..TAILLE_MAX)
+     * @throws IllegalArgumentException si le curseur ou la taille est invalide
+     */
+    public PageRendezVous getPage(Filtre filtre, Long proprietaireId, String curseur, int taille) {
+        if (taille < 1 || taille > TAILLE_MAX) {
+            throw new IllegalArgumentException("La taille de page doit être comprise entre 1 et " + TAILLE_MAX);
+        }
+        CurseurRendezVous position = curseur != null && !curseur.isBlank()
+                ? CurseurRendezVous.decoder(curseur)
+                : null;
+
+        TypedQuery<LigneRendezVous> query = em.createQuery(
+                SELECTION + filtre.clause + (position != null ? APRES_CURSEUR : "") + ORDRE,
+                LigneRendezVous.class)
+                .setParameter("proprietaire", proprietaireId)
+                .setMaxResults(taille + 1);
+        if (position != null) {
+            query.setParameter("dateDay", position.dateDay())
+                    .setParameter("heureDebut", position.heureDebut())
+                    .setParameter("id", position.id());
+        }
+        List<LigneRendezVous> lignes = query.getResultList();
+
+        // Une ligne de plus que demandé signale l'existence d'une page suivante
+        if (lignes.size() <= taille) {
+            return new PageRendezVous(lignes, null);
+        }
+        List<LigneRendezVous> page = lignes.subList(0, taille);
+        return new PageRendezVous(List.copyOf(page), CurseurRendezVous.apres(page.get(taille - 1)).encoder());
+    }
+
+    /**
+     * Écrit tout l'historique au format NDJSON (un objet JSON par ligne).
+     *
+     * Utilise une session sans état et un curseur en avant seulement : le pilote
+     * MySQL transmet alors les lignes au fur et à mesure au lieu de charger tout
+     * le résultat en mémoire.
+     */
+    public void exporterNdjson(Filtre filtre, Long proprietaireId, OutputStream sortie) throws IOException {
+        SessionFactory sessionFactory = em.getEntityManagerFactory().unwrap(SessionFactory.class);
+        try (StatelessSession session = sessionFactory.openStatelessSession();
+                ScrollableResults<LigneRendezVous> resultats = session
+                        .createQuery(SELECTION + filtre.clause + ORDRE, LigneRendezVous.class)
+                        .setParameter("proprietaire", proprietaireId)
+                        .setFetchSize(Integer.MIN_VALUE)
+                        .setReadOnly(true)
+                        .scroll(ScrollMode.FORWARD_ONLY);
+                JsonGenerator generateur = WRITER.createGenerator(sortie)) {
+            generateur.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generateur.setRootValueSeparator(null);
+            int lignes = 0;
+            while (resultats.next()) {
+                WRITER.writeValue(generateur, resultats.get());
+                generateur.writeRaw('\n');
+                if (++lignes % LIGNES_PAR_FLUSH == 0) {
+                    generateur.flush();
+                }
+            }
+        }
+    }
+}
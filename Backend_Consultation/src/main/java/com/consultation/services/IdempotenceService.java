@@ -0,0 +1,248 @@
+package com.consultation.services;
+
+import com.consultation.config.Parametres;
+import com.consultation.mapper.CustomObjectMapper;
+import com.consultation.models.CleIdempotence;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Réponses déjà envoyées pour les requêtes portant un en-tête Idempotency-Key.
+ *
+ * Une requête rejouée avec la même clé reçoit la réponse d'origine sans refaire
+ * la réservation. La clé est réservée avant la réservation (entrée "en cours",
+ * valable consultation.idempotence.attente.secondes) : un rejeu arrivé pendant
+ * le traitement d'origine est reconnu comme tel. Chaque clé garde l'empreinte
+ * du contenu de la requête, pour refuser sa réutilisation avec un contenu
+ * différent.
+ *
+ * Les réponses sont gardées en mémoire dans un LRU borné
+ * (consultation.idempotence.taille) pendant consultation.idempotence.ttl.minutes.
+ * Avec -Dconsultation.idempotence.jdbc=true elles sont aussi écrites dans la
+ * table cle_idempotence, dans la transaction de la réservation, ce qui les
+ * conserve après un redémarrage et les partage entre instances.
+ */
+@ApplicationScoped
+public class IdempotenceService {
+
+    private static final int TAILLE_MAX = Parametres.entier("consultation.idempotence.taille", 10_000);
+
+    private static final long TTL_MILLIS = Parametres.entierLong("consultation.idempotence.ttl.minutes", 24 * 60)
+            * 60_000L;
+
+    /**
+     * Durée maximale d'une réservation de clé en cours : au-delà (traitement
+     * interrompu), la clé peut être reprise.
+     */
+    private static final long ATTENTE_MILLIS = Parametres.entierLong("consultation.idempotence.attente.secondes",
+            30) * 1000L;
+
+    private static final boolean JDBC = Parametres.booleen("consultation.idempotence.jdbc", false);
+
+    private static final ObjectMapper MAPPER = CustomObjectMapper.create();
+
+    /**
+     * Longueur maximale acceptée pour une clé fournie par le client.
+     */
+    public static final int LONGUEUR_CLE_MAX = 128;
+
+    private static final int STATUT_EN_COURS = 0;
+
+    /**
+     * Réponse enregistrée pour une clé : statut HTTP et corps JSON, ou
+     * traitement encore en cours (statut STATUT_EN_COURS, corps null).
+     *
+     * @param empreinte empreinte du contenu de la requête d'origine
+     */
+    public record ReponseEnregistree(int statut, String corps, String empreinte, long expiration) {
+
+        public boolean enCours() {
+            return statut == STATUT_EN_COURS;
+        }
+    }
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final Map<String, ReponseEnregistree> cache = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ReponseEnregistree> eldest) {
+            return size() > TAILLE_MAX;
+        }
+    };
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Empreinte (SHA-256, hexadécimal) du contenu d'une requête.
+     */
+    public static String empreinte(Object... valeurs) {
+        StringBuilder contenu = new StringBuilder();
+        for (Object valeur : valeurs) {
+            contenu.append(valeur == null ? "" : valeur.toString().replace("\\", "\\\\").replace("\n", "\\n"))
+                    .append('\n');
+        }
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(contenu.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Réserve une clé pour le traitement d'une requête.
+     *
+     * @return null si la clé est réservée pour l'appelant, qui doit ensuite
+     *         appeler terminer() ou liberer() ; sinon l'entrée existante (réponse
+     *         enregistrée, ou traitement en cours)
+     */
+    public ReponseEnregistree reserver(String cle, String empreinte) {
+        long maintenant = System.currentTimeMillis();
+        ReponseEnregistree existante;
+        synchronized (cache) {
+            existante = cache.get(cle);
+            if (existante != null && existante.expiration() <= maintenant) {
+                cache.remove(cle);
+                existante = null;
+            }
+        }
+        if (existante == null && JDBC) {
+            CleIdempotence ligne = em.find(CleIdempotence.class, cle);
+            if (ligne != null) {
+                long expiration = ligne.getDateExpiration().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                if (expiration > maintenant) {
+                    existante = new ReponseEnregistree(ligne.getStatut(), ligne.getCorps(), ligne.getEmpreinte(),
+                            expiration);
+                }
+            }
+        }
+        synchronized (cache) {
+            ReponseEnregistree courante = cache.get(cle);
+            if (courante != null && courante.expiration() > maintenant) {
+                existante = courante;
+            } else if (existante != null) {
+                cache.put(cle, existante);
+            } else {
+                cache.put(cle, new ReponseEnregistree(STATUT_EN_COURS, null, empreinte,
+                        maintenant + ATTENTE_MILLIS));
+            }
+        }
+        if (existante != null && !existante.enCours()) {
+            hits.increment();
+        } else if (existante == null) {
+            misses.increment();
+        }
+        return existante;
+    }
+
+    /**
+     * Écrit en base la réponse d'une clé réservée, dans la transaction en cours
+     * (celle de la réservation). Sans effet si le stockage en base est
+     * désactivé.
+     *
+     * @throws jakarta.persistence.PersistenceException si une autre instance a
+     *         enregistré la même clé entre-temps
+     */
+    @Transactional
+    public void enregistrer(String cle, String empreinte, int statut, Object corps) {
+        if (!JDBC) {
+            return;
+        }
+        LocalDateTime expiration = LocalDateTime.ofInstant(
+                Instant.ofEpochMilli(System.currentTimeMillis() + TTL_MILLIS), ZoneId.systemDefault());
+        String json = json(corps);
+        CleIdempotence ligne = em.find(CleIdempotence.class, cle);
+        if (ligne == null) {
+            em.persist(new CleIdempotence(cle, empreinte, statut, json, expiration));
+        } else {
+            // Ligne expirée pas encore purgée
+            ligne.setEmpreinte(empreinte);
+            ligne.setStatut(statut);
+            ligne.setCorps(json);
+            ligne.setDateExpiration(expiration);
+        }
+        em.flush();
+    }
+
+    /**
+     * Remplace la réservation d'une clé par la réponse envoyée, une fois la
+     * transaction validée.
+     */
+    public void terminer(String cle, String empreinte, int statut, Object corps) {
+        ReponseEnregistree reponse = new ReponseEnregistree(statut, json(corps), empreinte,
+                System.currentTimeMillis() + TTL_MILLIS);
+        synchronized (cache) {
+            cache.put(cle, reponse);
+        }
+    }
+
+    /**
+     * Libère une clé réservée dont le traitement a échoué : la requête pourra
+     * être retentée avec la même clé.
+     */
+    public void liberer(String cle) {
+        synchronized (cache) {
+            ReponseEnregistree courante = cache.get(cle);
+            if (courante != null && courante.enCours()) {
+                cache.remove(cle);
+            }
+        }
+    }
+
+    private static String json(Object corps) {
+        try {
+            return corps instanceof String texte ? texte : MAPPER.writeValueAsString(corps);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Supprime les clés expirées de la table (sans effet si le stockage en base
+     * est désactivé).
+     */
+    @Transactional
+    public int purgerExpirees() {
+        if (!JDBC) {
+            return 0;
+        }
+        return em.createQuery("DELETE FROM CleIdempotence c WHERE c.dateExpiration < :maintenant")
+                .setParameter("maintenant", LocalDateTime.now())
+                .executeUpdate();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int getTaille() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    public boolean isJdbc() {
+        return JDBC;
+    }
+}
@@ -0,0 +1,104 @@
+package com.consultation.services;
+
+import com.consultation.models.Role;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.transaction.Transactional;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.List;
+import javax.sql.DataSource;
+
+/**
+ * Écriture d'un lot de patients importés, dans sa propre transaction : un lot
+ * en échec n'annule pas les lots déjà écrits.
+ */
+@ApplicationScoped
+public class ImportPatientsLot {
+
+    @Resource(lookup = "jdbc/consultationDb")
+    private DataSource dataSource;
+
+    /**
+     * Patient validé, mot de passe déjà haché.
+     */
+    record PatientValide(long ligne, String nom, String prenom, String email, String telephone, String hash,
+            LocalDate dateNaissance, String adresse) {
+    }
+
+    /**
+     * Insère les utilisateurs puis les patients du lot, chacun en un INSERT
+     * multi-lignes.
+     *
+     * @throws IllegalStateException si la base refuse le lot (doublon concurrent,
+     *                               contrainte...) ; la transaction est annulée
+     */
+    @Transactional
+    public void inserer(List<PatientValide> lot) {
+        try (Connection connection = dataSource.getConnection()) {
+            long[] ids = insererUtilisateurs(connection, lot);
+            insererPatients(connection, lot, ids);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    private long[] insererUtilisateurs(Connection connection, List<PatientValide> lot) throws SQLException {
+        StringBuilder sql = new StringBuilder(
+                "INSERT INTO utilisateur (nom, prenom, telephone, email, mot_de_passe, role, actif) VALUES ");
+        for (int i = 0; i < lot.size(); i++) {
+            sql.append(i == 0 ? "(?, ?, ?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?, ?, ?)");
+        }
+        long[] ids = new long[lot.size()];
+        try (PreparedStatement ps = connection.prepareStatement(sql.toString(),
+                Statement.RETURN_GENERATED_KEYS)) {
+            int index = 1;
+            for (PatientValide p : lot) {
+                ps.setString(index++, p.nom());
+                ps.setString(index++, p.prenom());
+                ps.setString(index++, p.telephone());
+                ps.setString(index++, p.email());
+                ps.setString(index++, p.hash());
+                ps.setString(index++, Role.PATIENT.name());
+                ps.setBoolean(index++, true);
+            }
+            ps.executeUpdate();
+            try (ResultSet cles = ps.getGeneratedKeys()) {
+                for (int i = 0; i < ids.length; i++) {
+                    if (!cles.next()) {
+                        throw new SQLException("Identifiants générés manquants");
+                    }
+                    ids[i] = cles.getLong(1);
+                }
+            }
+        }
+        return ids;
+    }
+
+    private void insererPatients(Connection connection, List<PatientValide> lot, long[] ids) throws SQLException {
+        StringBuilder sql = new StringBuilder(
+                "INSERT INTO patient (id_utilisateur, date_naissance, adresse) VALUES ");
+        for (int i = 0; i < lot.size(); i++) {
+            sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+        }
+        try (PreparedStatement ps = connection.prepareStatement(sql.toString())) {
+            int index = 1;
+            for (int i = 0; i < lot.size(); i++) {
+                PatientValide p = lot.get(i);
+                ps.setLong(index++, ids[i]);
+                if (p.dateNaissance() != null) {
+                    ps.setDate(index++, java.sql.Date.valueOf(p.dateNaissance()));
+                } else {
+                    ps.setNull(index++, Types.DATE);
+                }
+                ps.setString(index++, p.adresse());
+            }
+            ps.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package com.consultation.services;
+
+import com.consultation.config.Parametres;
+import com.consultation.dto.LignePatientImport;
+import com.consultation.dto.RapportImport;
+import com.consultation.mapper.CustomObjectMapper;
+import com.consultation.metrics.Chronometre;
+import com.consultation.security.MotDePasseService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+/**
+ * Import en masse de patients depuis un fichier CSV ou NDJSON.
+ *
+ * Le fichier est lu ligne par ligne : seul le lot en cours (TAILLE_LOT lignes)
+ * est gardé en mémoire, en plus de l'index des emails et téléphones existants
+ * chargé une fois au début (une requête) et jamais complété. Les doublons à
+ * l'intérieur d'un lot sont écartés avant l'écriture ; ceux entre deux lots
+ * sont refusés par les contraintes d'unicité de la base et isolés par la
+ * reprise ligne à ligne. Les mots de passe d'un lot sont hachés en parallèle sur le
+ * pool BCrypt des traitements en masse (distinct de celui des connexions), puis
+ * le lot est écrit par ImportPatientsLot dans sa propre transaction. Une ligne
+ * invalide est rapportée et n'interrompt pas l'import.
+ */
+@ApplicationScoped
+public class ImportPatientsService {
+
+    /**
+     * Lignes écrites par transaction.
+     */
+    private static final int TAILLE_LOT = 200;
+
+    /**
+     * Nombre maximal d'erreurs détaillées dans le rapport.
+     */
+    private static final int ERREURS_MAX = Parametres.entier("consultation.import.erreurs.max", 100);
+
+    private static final ObjectReader LECTEUR_JSON = CustomObjectMapper.create().readerFor(LignePatientImport.class);
+
+    /**
+     * Colonnes CSV obligatoires ; telephone, dateNaissance et adresse sont
+     * facultatives.
+     */
+    private static final List<String> COLONNES_OBLIGATOIRES = List.of("nom", "prenom", "email", "motDePasse");
+
+    /**
+     * Format du fichier importé.
+     */
+    public enum Format {
+        /**
+         * En-tête obligatoire (noms des champs de LignePatientImport, dans
+         * n'importe quel ordre),
+         * séparateur "," ou ";" détecté sur l'en-tête.
+         */
+        CSV,
+        /**
+         * Un objet JSON par ligne.
+         */
+        NDJSON
+    }
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Inject
+    private MotDePasseService motDePasseService;
+
+    @Inject
+    private ImportPatientsLot importPatientsLot;
+
+    /**
+     * Importe les patients du fichier.
+     *
+     * @throws IllegalArgumentException si l'en-tête CSV est absent ou incomplet
+     */
+    @Chronometre
+    public RapportImport importer(InputStream entree, Format format) throws IOException {
+        long debut = System.currentTimeMillis();
+        Rapport rapport = new Rapport();
+        Set<String> emails = new HashSet<>();
+        Set<String> telephones = new HashSet<>();
+        // Emails et téléphones du lot en cours, vidés à chaque écriture
+        Set<String> emailsLot = new HashSet<>();
+        Set<String> telephonesLot = new HashSet<>();
+        em.createQuery("SELECT u.email, u.telephone FROM Utilisateur u", Object[].class)
+                .getResultList()
+                .forEach(row -> {
+                    emails.add(normaliserEmail((String) row[0]));
+                    if (row[1] != null) {
+                        telephones.add(((String) row[1]).trim());
+                    }
+                });
+
+        BufferedReader lecteur = new BufferedReader(new InputStreamReader(entree, StandardCharsets.UTF_8));
+        long numero = 0;
+        Map<String, Integer> colonnes = null;
+        char separateur = ',';
+        if (format == Format.CSV) {
+            String entete = lecteur.readLine();
+            numero++;
+            if (entete == null || entete.isBlank()) {
+                throw new IllegalArgumentException("En-tête CSV manquant");
+            }
+            if (entete.startsWith("\uFEFF")) {
+                entete = entete.substring(1);
+            }
+            separateur = entete.indexOf(';') >= 0 && entete.indexOf(',') < 0 ? ';' : ',';
+            colonnes = lireEntete(decouperCsv(entete, separateur));
+        }
+
+        List<ImportPatientsLot.PatientValide> lot = new ArrayList<>(TAILLE_LOT);
+        List<String> motsDePasse = new ArrayList<>(TAILLE_LOT);
+        String ligne;
+        while ((ligne = lecteur.readLine()) != null) {
+            numero++;
+            if (ligne.isBlank()) {
+                continue;
+            }
+            rapport.lignes++;
+            LignePatientImport patient;
+            try {
+                patient = format == Format.CSV
+                        ? lireCsv(decouperCsv(ligne, separateur), colonnes)
+                        : LECTEUR_JSON.readValue(ligne);
+            } catch (JsonProcessingException | IllegalArgumentException e) {
+                rapport.erreur(numero, null, "Ligne illisible");
+                continue;
+            }
+
+            String erreur = valider(patient);
+            if (erreur == null) {
+                erreur = doublon(patient, emails, telephones);
+            }
+            if (erreur == null) {
+                erreur = doublon(patient, emailsLot, telephonesLot);
+            }
+            if (erreur != null) {
+                rapport.erreur(numero, patient.email(), erreur);
+                continue;
+            }
+            String telephone = vide(patient.telephone()) ? null : patient.telephone().trim();
+            emailsLot.add(normaliserEmail(patient.email()));
+            if (telephone != null) {
+                telephonesLot.add(telephone);
+            }
+            lot.add(new ImportPatientsLot.PatientValide(numero, patient.nom().trim(), patient.prenom().trim(),
+                    patient.email().trim(), telephone, null,
+                    vide(patient.dateNaissance()) ? null : LocalDate.parse(patient.dateNaissance().trim()),
+                    vide(patient.adresse()) ? null : patient.adresse().trim()));
+            motsDePasse.add(patient.motDePasse());
+
+            if (lot.size() == TAILLE_LOT) {
+                ecrireLot(lot, motsDePasse, rapport);
+                lot.clear();
+                motsDePasse.clear();
+                emailsLot.clear();
+                telephonesLot.clear();
+            }
+        }
+        if (!lot.isEmpty()) {
+            ecrireLot(lot, motsDePasse, rapport);
+        }
+
+        return new RapportImport(rapport.lignes, rapport.importes, rapport.erreurs, rapport.detail,
+                rapport.erreurs > rapport.detail.size(), System.currentTimeMillis() - debut);
+    }
+
+    /**
+     * Hache les mots de passe du lot en parallèle puis l'écrit. Si la base
+     * refuse le lot, ses lignes sont réessayées une par une pour isoler celles
+     * en cause.
+     */
+    private void ecrireLot(List<ImportPatientsLot.PatientValide> lot, List<String> motsDePasse, Rapport rapport) {
+        List<CompletableFuture<String>> hachages = new ArrayList<>(lot.size());
+        for (String motDePasse : motsDePasse) {
+            hachages.add(motDePasseService.hacherEnMasse(motDePasse).toCompletableFuture());
+        }
+
+        List<ImportPatientsLot.PatientValide> prets = new ArrayList<>(lot.size());
+        for (int i = 0; i < lot.size(); i++) {
+            ImportPatientsLot.PatientValide p = lot.get(i);
+            try {
+                String hash = hachages.get(i).join();
+                prets.add(new ImportPatientsLot.PatientValide(p.ligne(), p.nom(), p.prenom(), p.email(),
+                        p.telephone(), hash, p.dateNaissance(), p.adresse()));
+            } catch (CompletionException e) {
+                rapport.erreur(p.ligne(), p.email(), "Hachage du mot de passe impossible");
+            }
+        }
+        if (prets.isEmpty()) {
+            return;
+        }
+
+        try {
+            importPatientsLot.inserer(prets);
+            rapport.importes += prets.size();
+        } catch (RuntimeException e) {
+            for (ImportPatientsLot.PatientValide p : prets) {
+                try {
+                    importPatientsLot.inserer(List.of(p));
+                    rapport.importes++;
+                } catch (RuntimeException refus) {
+                    rapport.erreur(p.ligne(), p.email(), "Refusé par la base (email ou téléphone déjà utilisé ?)");
+                }
+            }
+        }
+    }
+
+    private static String valider(LignePatientImport patient) {
+        if (vide(patient.nom()) || vide(patient.prenom())) {
+            return "Nom et prénom requis";
+        }
+        if (patient.nom().trim().length() > 50 || patient.prenom().trim().length() > 50) {
+            return "Nom ou prénom trop long (50 caractères au plus)";
+        }
+        if (vide(patient.email()) || patient.email().indexOf('@') < 1 || patient.email().trim().length() > 100) {
+            return "Email invalide";
+        }
+        if (vide(patient.motDePasse())) {
+            return "Mot de passe requis";
+        }
+        if (!vide(patient.telephone()) && patient.telephone().trim().length() > 20) {
+            return "Téléphone trop long (20 caractères au plus)";
+        }
+        if (!vide(patient.adresse()) && patient.adresse().trim().length() > 255) {
+            return "Adresse trop longue (255 caractères au plus)";
+        }
+        if (!vide(patient.dateNaissance())) {
+            try {
+                LocalDate.parse(patient.dateNaissance().trim());
+            } catch (DateTimeParseException e) {
+                return "Date de naissance invalide (yyyy-MM-dd attendu)";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Message d'erreur si l'email ou le téléphone figure dans les ensembles
+     * donnés, null sinon.
+     */
+    private static String doublon(LignePatientImport patient, Set<String> emails, Set<String> telephones) {
+        if (emails.contains(normaliserEmail(patient.email()))) {
+            return "Un utilisateur avec cet email existe déjà.";
+        }
+        if (!vide(patient.telephone()) && telephones.contains(patient.telephone().trim())) {
+            return "Un utilisateur avec ce téléphone existe déjà.";
+        }
+        return null;
+    }
+
+    private static Map<String, Integer> lireEntete(List<String> entete) {
+        Map<String, Integer> colonnes = new HashMap<>();
+        for (int i = 0; i < entete.size(); i++) {
+            colonnes.put(entete.get(i).trim(), i);
+        }
+        List<String> manquantes = COLONNES_OBLIGATOIRES.stream()
+                .filter(c -> !colonnes.containsKey(c))
+                .collect(Collectors.toList());
+        if (!manquantes.isEmpty()) {
+            throw new IllegalArgumentException("Colonnes CSV manquantes : " + String.join(", ", manquantes));
+        }
+        return colonnes;
+    }
+
+    private static LignePatientImport lireCsv(List<String> valeurs, Map<String, Integer> colonnes) {
+        return new LignePatientImport(valeur(valeurs, colonnes, "nom"), valeur(valeurs, colonnes, "prenom"),
+                valeur(valeurs, colonnes, "email"), valeur(valeurs, colonnes, "telephone"),
+                valeur(valeurs, colonnes, "motDePasse"), valeur(valeurs, colonnes, "dateNaissance"),
+                valeur(valeurs, colonnes, "adresse"));
+    }
+
+    private static String valeur(List<String> valeurs, Map<String, Integer> colonnes, String colonne) {
+        Integer index = colonnes.get(colonne);
+        return index != null && index < valeurs.size() ? valeurs.get(index) : null;
+    }
+
+    /**
+     * Découpe une ligne CSV. Les champs entre guillemets peuvent contenir le
+     * séparateur et des guillemets doublés, mais pas de retour à la ligne.
+     *
+     * @throws IllegalArgumentException si un guillemet n'est pas refermé
+     */
+    static List<String> decouperCsv(String ligne, char separateur) {
+        List<String> champs = new ArrayList<>();
+        StringBuilder champ = new StringBuilder();
+        boolean entreGuillemets = false;
+        for (int i = 0; i < ligne.length(); i++) {
+            char c = ligne.charAt(i);
+            if (entreGuillemets) {
+                if (c == '"') {
+                    if (i + 1 < ligne.length() && ligne.charAt(i + 1) == '"') {
+                        champ.append('"');
+                        i++;
+                    } else {
+                        entreGuillemets = false;
+                    }
+                } else {
+                    champ.append(c);
+                }
+            } else if (c == '"') {
+                entreGuillemets = true;
+            } else if (c == separateur) {
+                champs.add(champ.toString());
+                champ.setLength(0);
+            } else {
+                champ.append(c);
+            }
+        }
+        if (entreGuillemets) {
+            throw new IllegalArgumentException("Guillemet non refermé");
+        }
+        champs.add(champ.toString());
+        return champs;
+    }
+
+    private static String normaliserEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase();
+    }
+
+    private static boolean vide(String valeur) {
+        return valeur == null || valeur.isBlank();
+    }
+
+    /**
+     * Compteurs de l'import en cours.
+     */
+    private static final class Rapport {
+        private long lignes;
+        private long importes;
+        private long erreurs;
+        private final List<RapportImport.ErreurImport> detail = new ArrayList<>();
+
+        void erreur(long ligne, String email, String message) {
+            erreurs++;
+            if (detail.size() < ERREURS_MAX) {
+                detail.add(new RapportImport.ErreurImport(ligne, email, message));
+            }
+        }
+    }
+}
@@ -1,10 +1,18 @@
 
 package com.consultation.services;
 
+import com.consultation.dto.MedecinDto;
+import com.consultation.dto.MedecinServiceDto;
+import com.consultation.cache.CacheSecondNiveau;
+import com.consultation.events.CreneauxModifies;
+import com.consultation.events.ReferentielModifie;
+import com.consultation.events.UtilisateurModifie;
 import com.consultation.models.Medecin;
 import com.consultation.models.Utilisateur;
 import com.consultation.models.Service;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
@@ -15,6 +23,15 @@ public class MedecinService {
     @PersistenceContext
     private EntityManager em;
 
+    @Inject
+    private Event<CreneauxModifies> creneauxModifies;
+
+    @Inject
+    private Event<UtilisateurModifie> utilisateurModifie;
+
+    @Inject
+    private Event<ReferentielModifie> referentielModifie;
+
     /**
      * Crée un médecin lié à un utilisateur.
      * 
@@ -35,16 +52,20 @@ public class MedecinService {
         medecin.setService(service);
         em.persist(medecin);
         em.flush(); // Ajoutez cette ligne
+        referentielModifie.fire(ReferentielModifie.medecin(medecin.getId()));
         return medecin;
     }
 
     /**
      * Retourne le nombre de médecins par service (nom du service et nombre).
+     * Le résultat est conservé dans le cache de requêtes Hibernate.
      */
     public java.util.Map<String, Long> countMedecinsByService() {
         var result = new java.util.HashMap<String, Long>();
         var query = em.createQuery("SELECT s.nom, COUNT(m) FROM Medecin m JOIN m.service s GROUP BY s.nom",
-                Object[].class);
+                Object[].class)
+                .setHint("org.hibernate.cacheable", true)
+                .setHint("org.hibernate.cacheRegion", CacheSecondNiveau.REGION_COMPTE_MEDECINS);
         for (Object[] row : query.getResultList()) {
             result.put((String) row[0], (Long) row[1]);
         }
@@ -58,6 +79,18 @@ public class MedecinService {
         return em.createQuery("SELECT m FROM Medecin m", Medecin.class).getResultList();
     }
 
+    /**
+     * Retourne la liste de tous les médecins, une ligne par médecin (utilisateur et
+     * service joints).
+     */
+    public java.util.List<MedecinDto> findAllDto() {
+        return em.createQuery(
+                "SELECT new com.consultation.dto.MedecinDto(m.id, u.nom, u.prenom, u.email, u.telephone, " +
+                        "u.role, u.actif, m.specialite, m.dureeSeance, m.adresseCabinet, s.id) " +
+                        "FROM Medecin m JOIN m.utilisateur u LEFT JOIN m.service s",
+                MedecinDto.class).getResultList();
+    }
+
     /**
      * Met à jour les informations d'un médecin.
      */
@@ -76,12 +109,15 @@ public class MedecinService {
         if (service != null)
             medecin.setService(service);
         em.merge(medecin);
+        referentielModifie.fire(ReferentielModifie.medecin(id));
         return medecin;
     }
 
     @Transactional
     public Medecin save(Medecin medecin) {
-        return em.merge(medecin);
+        Medecin merged = em.merge(medecin);
+        referentielModifie.fire(ReferentielModifie.medecin(merged.getId()));
+        return merged;
     }
 
     public Medecin findById(Long id) {
@@ -93,6 +129,9 @@ public class MedecinService {
         Medecin medecin = em.find(Medecin.class, id);
         if (medecin != null) {
             em.remove(medecin);
+            creneauxModifies.fire(CreneauxModifies.suppressionMedecin(id));
+            referentielModifie.fire(ReferentielModifie.medecin(id));
+            utilisateurModifie.fire(new UtilisateurModifie(id));
         }
     }
 
@@ -107,6 +146,20 @@ public class MedecinService {
                 .getResultList();
     }
 
+    /**
+     * Retourne les médecins actifs d'un service donné, une ligne par médecin.
+     */
+    public java.util.List<MedecinServiceDto> findDtoByService(Long serviceId) {
+        return em.createQuery(
+                "SELECT new com.consultation.dto.MedecinServiceDto(m.id, u.nom, u.prenom, u.email, u.telephone, " +
+                        "m.specialite, m.dureeSeance, m.adresseCabinet, u.actif, s.id, s.nom) " +
+                        "FROM Medecin m JOIN m.utilisateur u JOIN m.service s " +
+                        "WHERE s.id = :serviceId AND u.actif = true",
+                MedecinServiceDto.class)
+                .setParameter("serviceId", serviceId)
+                .getResultList();
+    }
+
     /**
      * Récupère un médecin par l'ID de son utilisateur.
      */
@@ -1,9 +1,13 @@
 
 package com.consultation.services;
 
+import com.consultation.dto.PatientDto;
+import com.consultation.events.UtilisateurModifie;
 import com.consultation.models.Patient;
 import com.consultation.models.Utilisateur;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
@@ -15,6 +19,9 @@ public class PatientService {
     @PersistenceContext
     private EntityManager em;
 
+    @Inject
+    private Event<UtilisateurModifie> utilisateurModifie;
+
     /**
      * Crée un patient lié à un utilisateur.
      * 
@@ -37,6 +44,17 @@ public class PatientService {
         return em.createQuery("SELECT p FROM Patient p", Patient.class).getResultList();
     }
 
+    /**
+     * Retourne tous les patients avec leur utilisateur, une ligne par patient.
+     */
+    public java.util.List<PatientDto> listerPatients() {
+        return em.createQuery(
+                "SELECT new com.consultation.dto.PatientDto(p.id, p.dateNaissance, p.adresse, u.id, u.nom, " +
+                        "u.prenom, u.telephone, u.email, u.role, u.actif) " +
+                        "FROM Patient p JOIN p.utilisateur u",
+                PatientDto.class).getResultList();
+    }
+
     @Transactional
     public void addPatient(Patient patient) {
         if (patient.getUtilisateur() != null && patient.getUtilisateur().getId() == null) {
@@ -79,6 +97,7 @@ public class PatientService {
                 uOld.setActif(uNew.isActif());
             }
             em.merge(existing);
+            utilisateurModifie.fire(new UtilisateurModifie(id));
         }
     }
 
@@ -94,6 +113,7 @@ public class PatientService {
                     em.remove(managedUser);
                 }
             }
+            utilisateurModifie.fire(new UtilisateurModifie(id));
         }
     }
 
@@ -6,7 +6,10 @@ import java.util.List;
 import com.consultation.models.Medecin;
 import com.consultation.models.PlanningConfig;
 import com.consultation.models.Crenaux;
+import com.consultation.events.PlanningModifie;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
@@ -17,6 +20,12 @@ public class PlanningConfigService {
     @PersistenceContext
     private EntityManager em;
 
+    @Inject
+    private CrenauxService crenauxService;
+
+    @Inject
+    private Event<PlanningModifie> planningModifie;
+
     @Transactional
     public PlanningConfig createPlanningConfig(Long medecinId, PlanningConfig config) {
         Medecin medecin = em.find(Medecin.class, medecinId);
@@ -28,6 +37,7 @@ public class PlanningConfigService {
 
         int dureeConsultation = medecin.getDureeSeance();
         genererCreneaux(config, dureeConsultation);
+        planningModifie.fire(new PlanningModifie(medecinId));
         return config;
     }
 
@@ -57,42 +67,65 @@ public class PlanningConfigService {
         int dureeConsultation = medecin.getDureeSeance();
         List<PlanningConfig> configs = new java.util.ArrayList<>();
         List<LocalDate> datesIgnorees = new java.util.ArrayList<>();
+        if (dates.isEmpty()) {
+            return new PlanningCreationResult(configs, datesIgnorees);
+        }
+
+        // Dates ayant déjà un planning, lues en une seule requête
+        java.util.Set<LocalDate> datesExistantes = new java.util.HashSet<>(em.createQuery(
+                "SELECT p.dateJournee FROM PlanningConfig p WHERE p.medecin.id = :medecinId AND p.dateJournee IN :dates",
+                LocalDate.class)
+                .setParameter("medecinId", medecinId)
+                .setParameter("dates", dates)
+                .getResultList());
 
+        List<Crenaux> candidats = new java.util.ArrayList<>();
         for (LocalDate date : dates) {
-            Long count = em.createQuery(
-                    "SELECT COUNT(p) FROM PlanningConfig p WHERE p.medecin.id = :medecinId AND p.dateJournee = :dateJournee",
-                    Long.class)
-                    .setParameter("medecinId", medecinId)
-                    .setParameter("dateJournee", date)
-                    .getSingleResult();
-
-            if (count == 0) {
+            if (datesExistantes.add(date)) {
                 PlanningConfig config = new PlanningConfig(medecin, date, heureDebut, heureFin);
                 em.persist(config);
-                genererCreneaux(config, dureeConsultation);
+                candidats.addAll(construireCreneaux(config, dureeConsultation));
                 configs.add(config);
             } else {
                 datesIgnorees.add(date);
             }
         }
+
+        // Tous les créneaux des nouvelles journées sont insérés en un seul passage
+        if (!configs.isEmpty()) {
+            LocalDate premiere = java.util.Collections.min(dates);
+            LocalDate derniere = java.util.Collections.max(dates);
+            crenauxService.insererCreneauxManquants(medecin, premiere, derniere, candidats);
+            planningModifie.fire(new PlanningModifie(medecinId));
+        }
         return new PlanningCreationResult(configs, datesIgnorees);
     }
 
     // Ajoute cette méthode dans PlanningConfigService
     public void genererCreneaux(PlanningConfig config, int dureeMinutes) {
+        crenauxService.insererCreneauxManquants(config.getMedecin(), config.getDateJournee(),
+                config.getDateJournee(), construireCreneaux(config, dureeMinutes));
+    }
+
+    /**
+     * Découpe la journée d'un planning en créneaux (non persistés), séparés par
+     * 5 minutes de battement.
+     */
+    private List<Crenaux> construireCreneaux(PlanningConfig config, int dureeMinutes) {
         LocalTime debut = config.getHeureDebutJournee();
         LocalTime fin = config.getHeureFinJournee();
         Medecin medecin = config.getMedecin();
+        List<Crenaux> creneaux = new java.util.ArrayList<>();
 
         while (debut.isBefore(fin)) {
             LocalTime creneauFin = debut.plusMinutes(dureeMinutes);
             if (creneauFin.isAfter(fin)) {
                 creneauFin = fin;
             }
-            Crenaux creneau = new Crenaux(medecin, config.getDateJournee(), debut, creneauFin);
-            em.persist(creneau);
+            creneaux.add(new Crenaux(medecin, config.getDateJournee(), debut, creneauFin));
             debut = creneauFin.plusMinutes(5);
         }
+        return creneaux;
     }
 
     public class PlanningConfigWithCreneaux {
@@ -116,15 +149,26 @@ public class PlanningConfigService {
                 .getResultList();
 
         List<PlanningConfigWithCreneaux> result = new java.util.ArrayList<>();
+        if (configs.isEmpty()) {
+            return result;
+        }
+
+        // Tous les créneaux de la plage en une requête, regroupés par journée
+        java.util.Map<LocalDate, List<Crenaux>> creneauxParJour = new java.util.HashMap<>();
+        for (Crenaux creneau : em.createQuery(
+                "SELECT c FROM Crenaux c WHERE c.medecin.id = :medecinId AND c.dateDay BETWEEN :dateDebut AND :dateFin ORDER BY c.dateDay, c.heureDebut",
+                Crenaux.class)
+                .setParameter("medecinId", medecinId)
+                .setParameter("dateDebut", dateDebut)
+                .setParameter("dateFin", dateFin)
+                .getResultList()) {
+            creneauxParJour.computeIfAbsent(creneau.getDateDay(), d -> new java.util.ArrayList<>()).add(creneau);
+        }
+
         for (PlanningConfig config : configs) {
-            List<Crenaux> creneaux = em.createQuery(
-                    "SELECT c FROM Crenaux c WHERE c.medecin.id = :medecinId AND c.dateDay = :dateDay ORDER BY c.heureDebut",
-                    Crenaux.class)
-                    .setParameter("medecinId", medecinId)
-                    .setParameter("dateDay", config.getDateJournee())
-                    .getResultList();
-            result.add(new PlanningConfigWithCreneaux(config, creneaux));
+            result.add(new PlanningConfigWithCreneaux(config,
+                    creneauxParJour.getOrDefault(config.getDateJournee(), List.of())));
         }
         return result;
     }
-}
\ No newline at end of file
+}
@@ -1,11 +1,20 @@
 package com.consultation.services;
 
+import com.consultation.cache.CompteursJourMedecin;
+import com.consultation.config.Parametres;
+import com.consultation.events.CreneauxModifies;
+import com.consultation.events.RendezVousModifie;
+import com.consultation.mapper.RendezVousMapper;
+import com.consultation.metrics.Chronometre;
+import com.consultation.metrics.jfr.AttenteVerrouReservationEvent;
 import com.consultation.models.RendezVous;
 import com.consultation.models.Crenaux;
 import com.consultation.models.StatutCrenau;
 import com.consultation.models.Patient;
 import com.consultation.models.StatutRDV;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.LockModeType;
@@ -20,9 +29,44 @@ public class RendezVousService {
     @PersistenceContext
     private EntityManager em;
 
+    @Inject
+    private Event<CreneauxModifies> creneauxModifies;
+
+    @Inject
+    private Event<RendezVousModifie> rendezVousModifie;
+
+    @Inject
+    private CompteursJourMedecin compteursJourMedecin;
+
+    @Inject
+    private IdempotenceService idempotenceService;
+
+    /**
+     * Début des lectures de rendez-vous destinées à l'affichage : le créneau, le
+     * médecin (utilisateur et service) et le patient (utilisateur) sont chargés
+     * dans la même requête, au lieu d'un SELECT par association et par ligne.
+     * Alias disponibles : r, c (créneau), m (médecin), p (patient).
+     */
+    private static final String RDV_AVEC_DETAILS = "SELECT r FROM RendezVous r " +
+            "JOIN FETCH r.creneau c JOIN FETCH c.medecin m JOIN FETCH m.utilisateur LEFT JOIN FETCH m.service " +
+            "JOIN FETCH r.patient p JOIN FETCH p.utilisateur ";
+
+    /**
+     * Stratégie de réservation des créneaux, choisie par la propriété
+     * consultation.reservation.mode :
+     * - "pessimiste" (défaut) : verrou SELECT ... FOR UPDATE sur le créneau ;
+     * - "optimiste" : UPDATE conditionnel sur le statut LIBRE, sans verrou tenu
+     * entre la lecture et l'écriture.
+     * Dans les deux cas la contrainte unique rendez_vous.id_creneau reste le
+     * dernier garde-fou contre le double booking.
+     */
+    private static final boolean RESERVATION_OPTIMISTE = "optimiste"
+            .equalsIgnoreCase(Parametres.texte("consultation.reservation.mode", "pessimiste"));
+
     /**
      * Prendre un rendez-vous pour un patient sur un créneau donné.
-     * Utilise un verrouillage pessimiste pour éviter le double booking.
+     * Le créneau est réservé selon la stratégie configurée (voir
+     * RESERVATION_OPTIMISTE).
      * 
      * @param patientId id du patient
      * @param creneauId id du créneau
@@ -33,34 +77,86 @@ public class RendezVousService {
      * @throws IllegalStateException    si le créneau est déjà réservé par un autre
      *                                  processus concurrent
      */
+    @Chronometre
     @Transactional
     public RendezVous prendreRendezVous(Long patientId, Long creneauId, String motif) {
+        return creerRendezVous(patientId, creneauId, motif);
+    }
+
+    /**
+     * Comme prendreRendezVous, pour une requête portant un en-tête
+     * Idempotency-Key : la réponse est enregistrée pour la clé (déjà réservée
+     * auprès d'IdempotenceService) dans la même transaction que le rendez-vous.
+     *
+     * @param cleIdempotence clé réservée par IdempotenceService.reserver
+     * @param empreinte      empreinte du contenu de la requête
+     */
+    @Chronometre
+    @Transactional
+    public RendezVous prendreRendezVous(Long patientId, Long creneauId, String motif, String cleIdempotence,
+            String empreinte) {
+        RendezVous rdv = creerRendezVous(patientId, creneauId, motif);
+        idempotenceService.enregistrer(cleIdempotence, empreinte, 201, RendezVousMapper.reponseCreation(rdv));
+        return rdv;
+    }
+
+    private RendezVous creerRendezVous(Long patientId, Long creneauId, String motif) {
         // 1. Récupérer le patient
         Patient patient = em.find(Patient.class, patientId);
         if (patient == null) {
             throw new IllegalArgumentException("Patient introuvable");
         }
 
-        // 2. Acquérir un verrou pessimiste sur le créneau pour éviter le double booking
+        // 2. Réserver le créneau (il est RESERVE au retour)
+        Crenaux creneau = RESERVATION_OPTIMISTE
+                ? reserverOptimiste(creneauId)
+                : reserverPessimiste(creneauId);
+
+        // 3. Créer le rendez-vous
+        RendezVous rdv = new RendezVous();
+        rdv.setPatient(patient);
+        rdv.setCreneau(creneau);
+        rdv.setMotif(motif);
+        rdv.setStatutRdv(StatutRDV.CONFIRME);
+
+        // 4. Persister immédiatement et forcer la synchronisation avec la DB
+        em.persist(rdv);
+        em.flush(); // Force l'écriture immédiate pour détecter les violations de contraintes
+
+        creneauxModifies.fire(CreneauxModifies.changement(creneau, StatutCrenau.LIBRE));
+        rendezVousModifie.fire(RendezVousModifie.de(rdv, null));
+        return rdv;
+    }
+
+    /**
+     * Réservation avec verrou pessimiste : le créneau est lu en SELECT ... FOR
+     * UPDATE, vérifié, puis passé à RESERVE.
+     */
+    private Crenaux reserverPessimiste(Long creneauId) {
         Crenaux creneau;
+        AttenteVerrouReservationEvent attente = new AttenteVerrouReservationEvent();
+        attente.begin();
         try {
             creneau = em.find(Crenaux.class, creneauId, LockModeType.PESSIMISTIC_WRITE);
+            attente.obtenu = true;
         } catch (PessimisticLockException | LockTimeoutException e) {
             throw new IllegalStateException(
                     "Ce créneau est en cours de réservation par un autre utilisateur. Veuillez réessayer.");
+        } finally {
+            terminer(attente, creneauId, "pessimiste");
         }
 
         if (creneau == null) {
             throw new IllegalArgumentException("Créneau introuvable");
         }
 
-        // 3. Vérifier si le créneau est disponible (vérification après acquisition du
+        // Vérifier si le créneau est disponible (vérification après acquisition du
         // verrou)
         if (creneau.getStatut() != StatutCrenau.LIBRE) {
             throw new IllegalArgumentException("Ce créneau n'est plus disponible");
         }
 
-        // 4. Double vérification : s'assurer qu'aucun rendez-vous n'existe déjà pour ce
+        // Double vérification : s'assurer qu'aucun rendez-vous n'existe déjà pour ce
         // créneau
         Long existingRdv = em.createQuery(
                 "SELECT COUNT(r) FROM RendezVous r WHERE r.creneau.id = :creneauId", Long.class)
@@ -71,22 +167,52 @@ public class RendezVousService {
             throw new IllegalArgumentException("Ce créneau est déjà réservé");
         }
 
-        // 5. Créer le rendez-vous
-        RendezVous rdv = new RendezVous();
-        rdv.setPatient(patient);
-        rdv.setCreneau(creneau);
-        rdv.setMotif(motif);
-        rdv.setStatutRdv(StatutRDV.CONFIRME);
-
-        // 6. Mettre à jour le statut du créneau
         creneau.setStatut(StatutCrenau.RESERVE);
+        return creneau;
+    }
 
-        // 7. Persister immédiatement et forcer la synchronisation avec la DB
-        em.persist(rdv);
-        em.merge(creneau);
-        em.flush(); // Force l'écriture immédiate pour détecter les violations de contraintes
+    /**
+     * Réservation optimiste : un seul UPDATE conditionnel passe le créneau de
+     * LIBRE à RESERVE. Si aucune ligne n'est modifiée, le créneau n'existe pas ou
+     * a déjà été pris ; aucun verrou n'est attendu.
+     */
+    private Crenaux reserverOptimiste(Long creneauId) {
+        AttenteVerrouReservationEvent attente = new AttenteVerrouReservationEvent();
+        attente.begin();
+        int modifies;
+        try {
+            modifies = em.createQuery(
+                    "UPDATE Crenaux c SET c.statut = :reserve WHERE c.id = :creneauId AND c.statut = :libre")
+                    .setParameter("reserve", StatutCrenau.RESERVE)
+                    .setParameter("creneauId", creneauId)
+                    .setParameter("libre", StatutCrenau.LIBRE)
+                    .executeUpdate();
+            attente.obtenu = modifies > 0;
+        } finally {
+            terminer(attente, creneauId, "optimiste");
+        }
 
-        return rdv;
+        // Lu après l'UPDATE : l'état renvoyé est celui qui vient d'être écrit
+        Crenaux creneau = em.find(Crenaux.class, creneauId);
+        if (creneau == null) {
+            throw new IllegalArgumentException("Créneau introuvable");
+        }
+        if (modifies == 0) {
+            throw new IllegalArgumentException("Ce créneau n'est plus disponible");
+        }
+        return creneau;
+    }
+
+    /**
+     * Enregistre l'attente du verrou sur la ligne du créneau (JFR).
+     */
+    private static void terminer(AttenteVerrouReservationEvent attente, Long creneauId, String mode) {
+        attente.end();
+        if (attente.shouldCommit()) {
+            attente.creneauId = creneauId;
+            attente.mode = mode;
+            attente.commit();
+        }
     }
 
     /**
@@ -101,40 +227,22 @@ public class RendezVousService {
      * - nombre de rendez-vous aujourd'hui non terminés
      * - nombre de créneaux libres aujourd'hui
      * - liste détaillée des rendez-vous d'aujourd'hui
+     * Les deux nombres proviennent de CompteursJourMedecin.
      */
     public java.util.Map<String, Object> getStatsJourMedecin(Long medecinId) {
         java.time.LocalDate aujourdhui = java.time.LocalDate.now();
 
-        // Compter les rendez-vous non terminés aujourd'hui pour ce médecin
-        long rdvNonTermines = em.createQuery(
-                "SELECT COUNT(r) FROM RendezVous r " +
-                        "WHERE r.creneau.medecin.id = :medecinId " +
-                        "AND r.creneau.dateDay = :aujourdhui " +
-                        "AND r.statutRdv != :termine",
-                Long.class)
-                .setParameter("medecinId", medecinId)
-                .setParameter("aujourdhui", aujourdhui)
-                .setParameter("termine", StatutRDV.TERMINE)
-                .getSingleResult();
-
-        // Compter les créneaux libres aujourd'hui pour ce médecin
-        long crenauxLibres = em.createQuery(
-                "SELECT COUNT(c) FROM Crenaux c " +
-                        "WHERE c.medecin.id = :medecinId " +
-                        "AND c.dateDay = :aujourdhui " +
-                        "AND c.statut = :libre",
-                Long.class)
-                .setParameter("medecinId", medecinId)
-                .setParameter("aujourdhui", aujourdhui)
-                .setParameter("libre", StatutCrenau.LIBRE)
-                .getSingleResult();
+        // Compteurs maintenus en mémoire (rendez-vous non terminés, créneaux libres)
+        CompteursJourMedecin.Compteurs compteurs = compteursJourMedecin.get(medecinId, aujourdhui);
+        long rdvNonTermines = compteurs.rdvNonTermines();
+        long crenauxLibres = compteurs.crenauxLibres();
 
         // Récupérer la liste des rendez-vous d'aujourd'hui pour ce médecin
         List<RendezVous> rdvAujourdhui = em.createQuery(
-                "SELECT r FROM RendezVous r " +
-                        "WHERE r.creneau.medecin.id = :medecinId " +
-                        "AND r.creneau.dateDay = :aujourdhui " +
-                        "ORDER BY r.creneau.heureDebut",
+                RDV_AVEC_DETAILS +
+                        "WHERE m.id = :medecinId " +
+                        "AND c.dateDay = :aujourdhui " +
+                        "ORDER BY c.heureDebut",
                 RendezVous.class)
                 .setParameter("medecinId", medecinId)
                 .setParameter("aujourdhui", aujourdhui)
@@ -178,15 +286,19 @@ public class RendezVousService {
         }
 
         StatutRDV statut = StatutRDV.valueOf(nouveauStatut.toUpperCase());
+        StatutRDV ancienStatutRdv = rdv.getStatutRdv();
         rdv.setStatutRdv(statut);
 
         // Si annulé, libérer le créneau
         if (statut == StatutRDV.ANNULE) {
+            StatutCrenau ancienStatut = rdv.getCreneau().getStatut();
             rdv.getCreneau().setStatut(StatutCrenau.LIBRE);
             em.merge(rdv.getCreneau());
+            creneauxModifies.fire(CreneauxModifies.changement(rdv.getCreneau(), ancienStatut));
         }
 
         em.merge(rdv);
+        rendezVousModifie.fire(RendezVousModifie.de(rdv, ancienStatutRdv));
         return rdv;
     }
 
@@ -199,10 +311,10 @@ public class RendezVousService {
         java.time.LocalDate finSemaine = debutSemaine.plusDays(6);
 
         List<RendezVous> rdvSemaine = em.createQuery(
-                "SELECT r FROM RendezVous r " +
-                        "WHERE r.creneau.medecin.id = :medecinId " +
-                        "AND r.creneau.dateDay BETWEEN :debut AND :fin " +
-                        "ORDER BY r.creneau.dateDay, r.creneau.heureDebut",
+                RDV_AVEC_DETAILS +
+                        "WHERE m.id = :medecinId " +
+                        "AND c.dateDay BETWEEN :debut AND :fin " +
+                        "ORDER BY c.dateDay, c.heureDebut",
                 RendezVous.class)
                 .setParameter("medecinId", medecinId)
                 .setParameter("debut", debutSemaine)
@@ -235,9 +347,9 @@ public class RendezVousService {
      */
     public List<RendezVous> getHistoriqueMedecin(Long medecinId, int limit) {
         return em.createQuery(
-                "SELECT r FROM RendezVous r " +
-                        "WHERE r.creneau.medecin.id = :medecinId " +
-                        "ORDER BY r.creneau.dateDay DESC, r.creneau.heureDebut DESC",
+                RDV_AVEC_DETAILS +
+                        "WHERE m.id = :medecinId " +
+                        "ORDER BY c.dateDay DESC, c.heureDebut DESC",
                 RendezVous.class)
                 .setParameter("medecinId", medecinId)
                 .setMaxResults(limit)
@@ -249,9 +361,9 @@ public class RendezVousService {
      */
     public List<RendezVous> getRendezVousPatient(Long patientId) {
         return em.createQuery(
-                "SELECT r FROM RendezVous r " +
-                        "WHERE r.patient.id = :patientId " +
-                        "ORDER BY r.creneau.dateDay DESC, r.creneau.heureDebut DESC",
+                RDV_AVEC_DETAILS +
+                        "WHERE p.id = :patientId " +
+                        "ORDER BY c.dateDay DESC, c.heureDebut DESC",
                 RendezVous.class)
                 .setParameter("patientId", patientId)
                 .getResultList();
@@ -263,11 +375,11 @@ public class RendezVousService {
     public RendezVous getProchainRendezVousPatient(Long patientId) {
         java.time.LocalDate aujourdhui = java.time.LocalDate.now();
         List<RendezVous> rdvs = em.createQuery(
-                "SELECT r FROM RendezVous r " +
-                        "WHERE r.patient.id = :patientId " +
-                        "AND r.creneau.dateDay >= :aujourdhui " +
+                RDV_AVEC_DETAILS +
+                        "WHERE p.id = :patientId " +
+                        "AND c.dateDay >= :aujourdhui " +
                         "AND r.statutRdv NOT IN (:annule, :termine) " +
-                        "ORDER BY r.creneau.dateDay ASC, r.creneau.heureDebut ASC",
+                        "ORDER BY c.dateDay ASC, c.heureDebut ASC",
                 RendezVous.class)
                 .setParameter("patientId", patientId)
                 .setParameter("aujourdhui", aujourdhui)
@@ -340,11 +452,15 @@ public class RendezVousService {
             throw new IllegalArgumentException("Impossible d'annuler un rendez-vous terminé");
         }
 
+        StatutRDV ancienStatutRdv = rdv.getStatutRdv();
         rdv.setStatutRdv(StatutRDV.ANNULE);
+        StatutCrenau ancienStatut = rdv.getCreneau().getStatut();
         rdv.getCreneau().setStatut(StatutCrenau.LIBRE);
 
         em.merge(rdv.getCreneau());
         em.merge(rdv);
+        creneauxModifies.fire(CreneauxModifies.changement(rdv.getCreneau(), ancienStatut));
+        rendezVousModifie.fire(RendezVousModifie.de(rdv, ancienStatutRdv));
 
         return rdv;
     }
@@ -1,7 +1,14 @@
 package com.consultation.services;
 
+import com.consultation.cache.CacheSecondNiveau;
+import com.consultation.events.CreneauxModifies;
+import com.consultation.events.ReferentielModifie;
+import com.consultation.events.UtilisateurModifie;
+import com.consultation.models.Medecin;
 import com.consultation.models.Service;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
@@ -13,8 +20,24 @@ public class ServiceService {
     @PersistenceContext
     private EntityManager em;
 
+    @Inject
+    private Event<ReferentielModifie> referentielModifie;
+
+    @Inject
+    private Event<CreneauxModifies> creneauxModifies;
+
+    @Inject
+    private Event<UtilisateurModifie> utilisateurModifie;
+
+    /**
+     * Liste des services, servie par le cache de requêtes Hibernate (les entités
+     * elles-mêmes sont dans la région Service).
+     */
     public List<Service> findAll() {
-        return em.createQuery("SELECT s FROM Service s", Service.class).getResultList();
+        return em.createQuery("SELECT s FROM Service s", Service.class)
+                .setHint("org.hibernate.cacheable", true)
+                .setHint("org.hibernate.cacheRegion", CacheSecondNiveau.REGION_CATALOGUE_SERVICES)
+                .getResultList();
     }
 
     public Service findById(Long id) {
@@ -25,6 +48,7 @@ public class ServiceService {
     public Service create(Service service) {
         em.persist(service);
         em.flush();
+        referentielModifie.fire(ReferentielModifie.service(service.getId()));
         return service;
     }
 
@@ -38,14 +62,26 @@ public class ServiceService {
         existing.setDescription(updatedService.getDescription());
         // Ajoute ici d’autres champs à mettre à jour si besoin
         Service merged = em.merge(existing);
+        referentielModifie.fire(ReferentielModifie.service(id));
         return merged;
     }
 
+    /**
+     * Supprime un service. La suppression s'étend à ses médecins et à leurs
+     * créneaux (cascade) : les mêmes événements que MedecinService.delete sont
+     * émis pour chacun d'eux.
+     */
     @Transactional
     public void delete(Long id) {
         Service service = em.find(Service.class, id);
         if (service != null) {
+            for (Medecin medecin : service.getMedecins()) {
+                creneauxModifies.fire(CreneauxModifies.suppressionMedecin(medecin.getId()));
+                // Même id que l'utilisateur (@MapsId), supprimé lui aussi par cascade
+                utilisateurModifie.fire(new UtilisateurModifie(medecin.getId()));
+            }
             em.remove(service);
+            referentielModifie.fire(ReferentielModifie.service(id));
         }
     }
 }
\ No newline at end of file
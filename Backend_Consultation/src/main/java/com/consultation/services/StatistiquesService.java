@@ -0,0 +1,69 @@
+package com.consultation.services;
+
+import com.consultation.dto.CompteParRole;
+import com.consultation.dto.CompteParStatutRdv;
+import com.consultation.dto.StatsRendezVousDto;
+import com.consultation.dto.StatsServicesDto;
+import com.consultation.dto.StatsUtilisateursDto;
+import com.consultation.models.Role;
+import com.consultation.models.StatutRDV;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Statistiques globales du tableau de bord administrateur.
+ * Chaque statistique est calculée par une requête d'agrégation (GROUP BY) en
+ * base : aucune entité n'est chargée en mémoire.
+ */
+@ApplicationScoped
+public class StatistiquesService {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    /**
+     * Nombre total de rendez-vous, réalisés (TERMINE) et à venir (CONFIRME).
+     */
+    public StatsRendezVousDto getStatsRendezVous() {
+        Map<StatutRDV, Long> parStatut = new EnumMap<>(StatutRDV.class);
+        for (CompteParStatutRdv ligne : em.createQuery(
+                "SELECT new com.consultation.dto.CompteParStatutRdv(r.statutRdv, COUNT(r)) " +
+                        "FROM RendezVous r GROUP BY r.statutRdv",
+                CompteParStatutRdv.class).getResultList()) {
+            parStatut.put(ligne.statut(), ligne.nombre());
+        }
+        long total = parStatut.values().stream().mapToLong(Long::longValue).sum();
+        return new StatsRendezVousDto(total,
+                parStatut.getOrDefault(StatutRDV.TERMINE, 0L),
+                parStatut.getOrDefault(StatutRDV.CONFIRME, 0L));
+    }
+
+    /**
+     * Nombre total d'utilisateurs et détail par rôle.
+     */
+    public StatsUtilisateursDto getStatsUtilisateurs() {
+        Map<Role, Long> parRole = new EnumMap<>(Role.class);
+        for (CompteParRole ligne : em.createQuery(
+                "SELECT new com.consultation.dto.CompteParRole(u.role, COUNT(u)) " +
+                        "FROM Utilisateur u GROUP BY u.role",
+                CompteParRole.class).getResultList()) {
+            parRole.put(ligne.role(), ligne.nombre());
+        }
+        long total = parRole.values().stream().mapToLong(Long::longValue).sum();
+        return new StatsUtilisateursDto(total,
+                parRole.getOrDefault(Role.PATIENT, 0L),
+                parRole.getOrDefault(Role.MEDECIN, 0L),
+                parRole.getOrDefault(Role.ADMIN, 0L));
+    }
+
+    /**
+     * Nombre total de services médicaux.
+     */
+    public StatsServicesDto getStatsServices() {
+        return new StatsServicesDto(em.createQuery("SELECT COUNT(s) FROM Service s", Long.class)
+                .getSingleResult());
+    }
+}
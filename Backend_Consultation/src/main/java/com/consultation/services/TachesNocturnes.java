@@ -0,0 +1,35 @@
+package com.consultation.services;
+
+import com.consultation.cache.CompteursJourMedecin;
+import jakarta.ejb.Schedule;
+import jakarta.ejb.Singleton;
+import jakarta.inject.Inject;
+
+/**
+ * Tâches de maintenance exécutées chaque nuit par le conteneur.
+ */
+@Singleton
+public class TachesNocturnes {
+
+    @Inject
+    private CompteursJourMedecin compteursJourMedecin;
+
+    @Inject
+    private IdempotenceService idempotenceService;
+
+    /**
+     * Recalcule depuis MySQL les compteurs du tableau de bord médecin (3h00).
+     */
+    @Schedule(hour = "3", minute = "0", persistent = false)
+    public void reconstruireCompteurs() {
+        compteursJourMedecin.reconstruire();
+    }
+
+    /**
+     * Supprime les clés d'idempotence expirées de la base (3h15).
+     */
+    @Schedule(hour = "3", minute = "15", persistent = false)
+    public void purgerClesIdempotence() {
+        idempotenceService.purgerExpirees();
+    }
+}
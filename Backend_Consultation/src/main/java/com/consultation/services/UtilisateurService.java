@@ -1,18 +1,29 @@
 package com.consultation.services;
 
+import com.consultation.events.UtilisateurModifie;
 import com.consultation.models.Utilisateur;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import java.util.List;
-import org.mindrot.jbcrypt.BCrypt;
+import java.util.logging.Logger;
+import com.consultation.security.MotDePasseService;
 
 @ApplicationScoped
 public class UtilisateurService {
 
+    private static final Logger LOGGER = Logger.getLogger(UtilisateurService.class.getName());
+
     @Inject
     EntityManager em;
 
+    @Inject
+    private Event<UtilisateurModifie> utilisateurModifie;
+
+    @Inject
+    private MotDePasseService motDePasseService;
+
     public List<Utilisateur> findAll() {
         return em.createQuery("SELECT u FROM Utilisateur u", Utilisateur.class).getResultList();
     }
@@ -32,10 +43,9 @@ public class UtilisateurService {
             return null;
         String newEmail = utilisateur.getEmail() != null ? utilisateur.getEmail().trim().toLowerCase() : null;
         String oldEmail = existing.getEmail() != null ? existing.getEmail().trim().toLowerCase() : null;
-        System.out.println("[DEBUG] oldEmail=" + oldEmail + ", newEmail=" + newEmail);
         // Vérifier unicité de l'email uniquement si l'email est modifié
         if (newEmail != null && !newEmail.equals(oldEmail)) {
-            System.out.println("[DEBUG] L'email a été modifié, vérification unicité...");
+            LOGGER.fine(() -> "Email modifié pour l'utilisateur " + id + ", vérification de l'unicité");
             List<Utilisateur> usersWithSameEmail = em
                     .createQuery("SELECT u FROM Utilisateur u WHERE LOWER(TRIM(u.email)) = :email AND u.id <> :id",
                             Utilisateur.class)
@@ -43,7 +53,7 @@ public class UtilisateurService {
                     .setParameter("id", id)
                     .getResultList();
             if (!usersWithSameEmail.isEmpty()) {
-                System.out.println("[DEBUG] Email déjà utilisé par un autre utilisateur !");
+                LOGGER.fine(() -> "Email déjà utilisé, mise à jour de l'utilisateur " + id + " refusée");
                 throw new RuntimeException("Cet email est déjà utilisé par un autre utilisateur.");
             }
         }
@@ -62,7 +72,7 @@ public class UtilisateurService {
                     existing.setMotDePasse(newPwd);
                 } else {
                     // Sinon, on hash le mot de passe en clair
-                    String hash = BCrypt.hashpw(newPwd, BCrypt.gensalt());
+                    String hash = motDePasseService.hacher(newPwd);
                     existing.setMotDePasse(hash);
                 }
             }
@@ -70,6 +80,7 @@ public class UtilisateurService {
         existing.setRole(utilisateur.getRole());
         existing.setActif(utilisateur.isActif());
         em.merge(existing);
+        utilisateurModifie.fire(new UtilisateurModifie(id));
         return existing;
     }
 
@@ -78,6 +89,7 @@ public class UtilisateurService {
         if (user == null)
             return false;
         em.remove(user);
+        utilisateurModifie.fire(new UtilisateurModifie(id));
         return true;
     }
     // Recherche un utilisateur par email (null si non trouvé)
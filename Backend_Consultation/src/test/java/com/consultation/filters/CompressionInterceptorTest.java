@@ -0,0 +1,42 @@
+package com.consultation.filters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Négociation de l'encodage de CompressionInterceptor à partir
+ * d'Accept-Encoding.
+ */
+class CompressionInterceptorTest {
+
+    @Test
+    void sansCompressionAcceptee() {
+        assertNull(CompressionInterceptor.negocier(null));
+        assertNull(CompressionInterceptor.negocier(""));
+        assertNull(CompressionInterceptor.negocier("identity, br"));
+    }
+
+    @Test
+    void gzipPrefereADeflate() {
+        assertEquals("gzip", CompressionInterceptor.negocier("deflate, gzip"));
+        assertEquals("gzip", CompressionInterceptor.negocier("GZIP;q=0.5, deflate"));
+        assertEquals("deflate", CompressionInterceptor.negocier("deflate"));
+    }
+
+    @Test
+    void qualiteNulleRefuseLeCodage() {
+        assertNull(CompressionInterceptor.negocier("gzip;q=0"));
+        assertEquals("deflate", CompressionInterceptor.negocier("gzip; q=0.0, deflate"));
+        assertEquals("gzip", CompressionInterceptor.negocier("gzip;q=0.01"));
+    }
+
+    @Test
+    void etoile() {
+        assertEquals("gzip", CompressionInterceptor.negocier("*"));
+        assertNull(CompressionInterceptor.negocier("*;q=0"));
+        assertEquals("deflate", CompressionInterceptor.negocier("gzip;q=0, *"));
+        assertEquals("gzip", CompressionInterceptor.negocier("*;q=0, gzip"));
+    }
+}
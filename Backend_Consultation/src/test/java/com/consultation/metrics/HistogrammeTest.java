@@ -0,0 +1,79 @@
+package com.consultation.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Découpage en seaux de Histogramme et calcul des quantiles : limites entre la
+ * partie linéaire et la partie logarithmique, et seau de dépassement.
+ */
+class HistogrammeTest {
+
+    /**
+     * Dernier seau : valeurs d'au moins 2^38 µs.
+     */
+    private static final int DEPASSEMENT = Histogramme.indice(Long.MAX_VALUE);
+
+    @Test
+    void valeursLineairesDansLeurPropreSeau() {
+        assertEquals(0, Histogramme.indice(0));
+        assertEquals(31, Histogramme.indice(31));
+        assertEquals(31, Histogramme.borneHaute(31));
+    }
+
+    @Test
+    void premiereOctaveEnSeauxDeDeux() {
+        assertEquals(32, Histogramme.indice(32));
+        assertEquals(32, Histogramme.indice(33));
+        assertEquals(33, Histogramme.borneHaute(32));
+        assertEquals(33, Histogramme.indice(34));
+        assertEquals(47, Histogramme.indice(63));
+        assertEquals(63, Histogramme.borneHaute(47));
+        assertEquals(48, Histogramme.indice(64));
+    }
+
+    @Test
+    void borneHauteEncadreChaqueValeur() {
+        for (long valeur = 0; valeur < 100_000; valeur++) {
+            int indice = Histogramme.indice(valeur);
+            assertTrue(Histogramme.borneHaute(indice) >= valeur, "borne haute de " + valeur);
+            assertTrue(indice == 0 || Histogramme.borneHaute(indice - 1) < valeur, "seau de " + valeur);
+        }
+    }
+
+    @Test
+    void seauDeDepassement() {
+        assertEquals(DEPASSEMENT, Histogramme.indice(1L << 38));
+        assertEquals(DEPASSEMENT - 1, Histogramme.indice((1L << 38) - (1L << 33) - 1));
+        assertEquals((1L << 38) - 1, Histogramme.borneHaute(DEPASSEMENT));
+    }
+
+    @Test
+    void quantilesBornesParLeMaximum() {
+        Histogramme histogramme = new Histogramme();
+        assertEquals(0, histogramme.instantane().quantile(0.5));
+
+        for (long micros = 1; micros <= 100; micros++) {
+            histogramme.enregistrer(micros);
+        }
+        Histogramme.Instantane instantane = histogramme.instantane();
+        assertEquals(100, instantane.nombre());
+        assertEquals(5050, instantane.somme());
+        assertEquals(1, instantane.quantile(0));
+        assertEquals(10, instantane.quantile(0.1));
+        assertEquals(51, instantane.quantile(0.5));
+        assertEquals(100, instantane.quantile(1));
+    }
+
+    @Test
+    void quantileDuSeauDeDepassementEgalAuMaximum() {
+        Histogramme histogramme = new Histogramme();
+        histogramme.enregistrer(10);
+        histogramme.enregistrer(1L << 40);
+        Histogramme.Instantane instantane = histogramme.instantane();
+        assertEquals(10, instantane.quantile(0.5));
+        assertEquals(1L << 40, instantane.quantile(1));
+    }
+}
@@ -0,0 +1,41 @@
+package com.consultation.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Découpage des lignes CSV de l'import de patients (ImportPatientsService).
+ */
+class ImportPatientsServiceCsvTest {
+
+    @Test
+    void champsSimplesEtVides() {
+        assertEquals(List.of("Dupont", "", "jean@example.com", ""),
+                ImportPatientsService.decouperCsv("Dupont,,jean@example.com,", ','));
+    }
+
+    @Test
+    void separateurEtGuillemetsDoublesEntreGuillemets() {
+        assertEquals(List.of("Dupont", "12, rue \"des Lilas\"", "x"),
+                ImportPatientsService.decouperCsv("Dupont,\"12, rue \"\"des Lilas\"\"\",x", ','));
+        assertEquals(List.of("\""), ImportPatientsService.decouperCsv("\"\"\"\"", ','));
+    }
+
+    @Test
+    void pointVirguleCommeSeparateur() {
+        assertEquals(List.of("Dupont", "Jean", "1, rue Haute"),
+                ImportPatientsService.decouperCsv("Dupont;Jean;1, rue Haute", ';'));
+        assertEquals(List.of("a;b", "c"), ImportPatientsService.decouperCsv("\"a;b\";c", ';'));
+    }
+
+    @Test
+    void guillemetNonRefermeRefuse() {
+        assertThrows(IllegalArgumentException.class,
+                () -> ImportPatientsService.decouperCsv("Dupont,\"Jean,x", ','));
+        assertThrows(IllegalArgumentException.class,
+                () -> ImportPatientsService.decouperCsv("\"a\"\"", ','));
+    }
+}
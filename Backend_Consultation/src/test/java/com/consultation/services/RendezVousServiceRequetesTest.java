@@ -0,0 +1,211 @@
+package com.consultation.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import com.consultation.cache.CompteursJourMedecin;
+import com.consultation.models.Crenaux;
+import com.consultation.models.Medecin;
+import com.consultation.models.Patient;
+import com.consultation.models.RendezVous;
+import com.consultation.models.Role;
+import com.consultation.models.Service;
+import com.consultation.models.StatutCrenau;
+import com.consultation.models.StatutRDV;
+import com.consultation.models.Utilisateur;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import java.lang.reflect.Field;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Nombre d'instructions SQL des lectures de rendez-vous de RendezVousService.
+ *
+ * Chaque lecture porte sur plusieurs rendez-vous de patients différents : un
+ * retour au chargement association par association (N+1) ajoute des SELECT et
+ * fait échouer le test. Le contexte de persistance est vidé avant chaque mesure
+ * et le cache de second niveau est désactivé (persistence unit testPU).
+ */
+class RendezVousServiceRequetesTest {
+
+    private static final int NOMBRE_PATIENTS = 4;
+
+    private static final int RDV_PAR_PATIENT = 3;
+
+    private static EntityManagerFactory emf;
+
+    private static Statistics statistiques;
+
+    private static Long medecinId;
+
+    private static Long patientId;
+
+    private EntityManager em;
+
+    private RendezVousService service;
+
+    @BeforeAll
+    static void creerBase() {
+        emf = Persistence.createEntityManagerFactory("testPU");
+        statistiques = emf.unwrap(SessionFactory.class).getStatistics();
+
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            Service specialite = new Service();
+            specialite.setNom("Médecine générale");
+            em.persist(specialite);
+
+            Medecin medecin = new Medecin();
+            medecin.setUtilisateur(utilisateur("medecin@example.com", Role.MEDECIN));
+            medecin.setSpecialite("Généraliste");
+            medecin.setDureeSeance(30);
+            medecin.setService(specialite);
+            em.persist(medecin.getUtilisateur());
+            em.persist(medecin);
+
+            // Créneaux d'aujourd'hui et de demain, répartis entre les patients
+            LocalDate aujourdhui = LocalDate.now();
+            LocalTime heure = LocalTime.of(8, 0);
+            for (int i = 0; i < NOMBRE_PATIENTS; i++) {
+                Patient patient = new Patient();
+                patient.setUtilisateur(utilisateur("patient" + i + "@example.com", Role.PATIENT));
+                em.persist(patient.getUtilisateur());
+                em.persist(patient);
+                for (int j = 0; j < RDV_PAR_PATIENT; j++) {
+                    LocalDate jour = j == 0 ? aujourdhui.plusDays(1) : aujourdhui;
+                    Crenaux creneau = new Crenaux(medecin, jour, heure, heure.plusMinutes(30),
+                            StatutCrenau.RESERVE);
+                    em.persist(creneau);
+                    RendezVous rdv = new RendezVous();
+                    rdv.setCreneau(creneau);
+                    rdv.setPatient(patient);
+                    rdv.setMotif("Consultation " + i + "-" + j);
+                    rdv.setStatutRdv(StatutRDV.CONFIRME);
+                    em.persist(rdv);
+                    heure = heure.plusMinutes(30);
+                }
+                patientId = patient.getId();
+            }
+            em.getTransaction().commit();
+            medecinId = medecin.getId();
+        } finally {
+            em.close();
+        }
+    }
+
+    @AfterAll
+    static void fermerBase() {
+        emf.close();
+    }
+
+    @BeforeEach
+    void creerService() throws ReflectiveOperationException {
+        em = emf.createEntityManager();
+        CompteursJourMedecin compteurs = new CompteursJourMedecin();
+        injecter(compteurs, "em", em);
+        service = new RendezVousService();
+        injecter(service, "em", em);
+        injecter(service, "compteursJourMedecin", compteurs);
+    }
+
+    @AfterEach
+    void fermerContexte() {
+        em.close();
+    }
+
+    @Test
+    void statsJourMedecinEnUneRequete() {
+        // Premier appel : chargement des compteurs du jour (deux COUNT)
+        service.getStatsJourMedecin(medecinId);
+
+        Map<String, Object> stats = mesurer(1, () -> service.getStatsJourMedecin(medecinId));
+        assertEquals(NOMBRE_PATIENTS * (RDV_PAR_PATIENT - 1), ((List<?>) stats.get("rdvAujourdhui")).size());
+    }
+
+    @Test
+    void planningSemaineMedecinEnUneRequete() {
+        Map<String, Object> planning = mesurer(1, () -> service.getPlanningSemaneMedecin(medecinId));
+        int total = ((Map<?, ?>) planning.get("planning")).values().stream()
+                .mapToInt(jour -> ((List<?>) jour).size())
+                .sum();
+        // Demain peut tomber la semaine suivante (le dimanche)
+        int attendus = LocalDate.now().getDayOfWeek() == java.time.DayOfWeek.SUNDAY
+                ? NOMBRE_PATIENTS * (RDV_PAR_PATIENT - 1)
+                : NOMBRE_PATIENTS * RDV_PAR_PATIENT;
+        assertEquals(attendus, total);
+    }
+
+    @Test
+    void historiqueMedecinEnUneRequete() {
+        List<RendezVous> historique = mesurer(1, () -> parcourir(service.getHistoriqueMedecin(medecinId, 50)));
+        assertEquals(NOMBRE_PATIENTS * RDV_PAR_PATIENT, historique.size());
+    }
+
+    @Test
+    void rendezVousPatientEnUneRequete() {
+        List<RendezVous> rdvs = mesurer(1, () -> parcourir(service.getRendezVousPatient(patientId)));
+        assertEquals(RDV_PAR_PATIENT, rdvs.size());
+    }
+
+    @Test
+    void prochainRendezVousPatientEnUneRequete() {
+        RendezVous prochain = mesurer(1,
+                () -> parcourir(List.of(service.getProchainRendezVousPatient(patientId))).get(0));
+        assertNotNull(prochain);
+    }
+
+    /**
+     * Exécute la lecture sur un contexte de persistance vide et vérifie le nombre
+     * d'instructions SQL préparées.
+     */
+    private <T> T mesurer(long attendues, Supplier<T> lecture) {
+        em.clear();
+        statistiques.clear();
+        T resultat = lecture.get();
+        assertEquals(attendues, statistiques.getPrepareStatementCount(),
+                "Nombre d'instructions SQL");
+        return resultat;
+    }
+
+    /**
+     * Accède aux associations utilisées par les appelants (JSON des ressources),
+     * pour que tout chargement différé soit compté.
+     */
+    private static List<RendezVous> parcourir(List<RendezVous> rdvs) {
+        for (RendezVous rdv : rdvs) {
+            rdv.getPatient().getUtilisateur().getNom();
+            rdv.getCreneau().getMedecin().getUtilisateur().getNom();
+            rdv.getCreneau().getMedecin().getService().getNom();
+        }
+        return rdvs;
+    }
+
+    private static Utilisateur utilisateur(String email, Role role) {
+        Utilisateur utilisateur = new Utilisateur();
+        utilisateur.setNom("Nom");
+        utilisateur.setPrenom("Prenom");
+        utilisateur.setEmail(email);
+        utilisateur.setMotDePasse("x");
+        utilisateur.setRole(role);
+        return utilisateur;
+    }
+
+    private static void injecter(Object cible, String champ, Object valeur) throws ReflectiveOperationException {
+        Field field = cible.getClass().getDeclaredField(champ);
+        field.setAccessible(true);
+        field.set(cible, valeur);
+    }
+}